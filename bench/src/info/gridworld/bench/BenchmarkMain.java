@@ -0,0 +1,19 @@
+package info.gridworld.bench;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so every result also reports the bytes
+ * allocated per operation. All arguments are passed on to JMH, e.g. <code>StepBenchmark -p
+ * parallelism=1,4</code> runs only the step benchmarks, serially and on four threads.
+ */
+public class BenchmarkMain {
+  public static void main(final String[] args) throws Exception {
+    final String[] jmhArgs = Arrays.copyOf(args, args.length + 2);
+    jmhArgs[args.length] = "-prof";
+    jmhArgs[args.length + 1] = "gc";
+    Main.main(jmhArgs);
+  }
+}
@@ -0,0 +1,89 @@
+package info.gridworld.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import info.gridworld.actor.Actor;
+import info.gridworld.actor.ActorRegistry;
+import info.gridworld.actor.ShellWorld;
+import info.gridworld.grid.Location;
+
+/**
+ * Checks on the fixed seed of {@link Scenarios} that the ways of stepping a world that are meant to
+ * agree end in the same state: a parallel sense/think phase (see
+ * {@link ShellWorld#setParallelism(int)}) and a serial one, and, when shells act simultaneously
+ * (see {@link ShellWorld#setSimultaneous(boolean)}), shells registered in opposite orders and
+ * planning on one thread or several. Every brain mix is stepped each way, and the digests (see
+ * {@link ShellWorld#digest()}) are compared. Prints one line per comparison and exits with status 1
+ * if any digests differ. The only argument is the number of steps, 200 by default.
+ */
+public class DigestCheck {
+  private static final int SIZE = 64;
+  private static final double DENSITY = 0.3;
+  private static final int THREADS = 4;
+  private static final String[] BRAINS = {"caleb", "hunter", "mixed"};
+
+  public static void main(final String[] args) {
+    final int steps = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+    boolean ok = true;
+    for (final String brains : DigestCheck.BRAINS) {
+      ok &= DigestCheck.compare(brains + " serial/parallel",
+        DigestCheck.run(brains, false, false, 1, steps),
+        DigestCheck.run(brains, false, false, DigestCheck.THREADS, steps));
+      final long simultaneous = DigestCheck.run(brains, true, false, 1, steps);
+      ok &= DigestCheck.compare(brains + " simultaneous forward/reverse",
+        simultaneous, DigestCheck.run(brains, true, true, 1, steps));
+      ok &= DigestCheck.compare(brains + " simultaneous serial/parallel",
+        simultaneous,
+        DigestCheck.run(brains, true, true, DigestCheck.THREADS, steps));
+    }
+    if (!ok) {
+      System.exit(1);
+    }
+  }
+
+  private static long run(final String brains, final boolean simultaneous,
+    final boolean reverse, final int parallelism, final int steps) {
+    final ShellWorld world = Scenarios.cashGrab("BoundedGrid", DigestCheck.SIZE,
+      DigestCheck.DENSITY, brains);
+    if (reverse) {
+      DigestCheck.reverseRegistration(world);
+    }
+    world.setSimultaneous(simultaneous);
+    world.setParallelism(parallelism);
+    for (int i = 0; i < steps; i++) {
+      world.step();
+    }
+    world.setParallelism(1);
+    return world.digest();
+  }
+
+  /**
+   * Takes every actor that acts out of the grid and puts it back at the same location, last
+   * registered first, so the world steps its actors in the opposite order.
+   */
+  private static void reverseRegistration(final ShellWorld world) {
+    final ActorRegistry registry = world.getRegistry();
+    final List<Actor> actors = new ArrayList<>();
+    for (int i = 0; i < registry.getSize(); i++) {
+      final Actor actor = registry.get(i);
+      if (actor != null) {
+        actors.add(actor);
+      }
+    }
+    for (int i = actors.size() - 1; i >= 0; i--) {
+      final Actor actor = actors.get(i);
+      final Location loc = actor.getLocation();
+      actor.removeSelfFromGrid();
+      actor.putSelfInGrid(world.getGrid(), loc);
+    }
+  }
+
+  private static boolean compare(final String what, final long expected,
+    final long actual) {
+    final boolean same = expected == actual;
+    System.out.println((same ? "ok   " : "FAIL ") + what + ": " + expected
+      + (same ? "" : " != " + actual));
+    return same;
+  }
+}
@@ -0,0 +1,99 @@
+package info.gridworld.bench;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import info.gridworld.grid.Grid;
+import info.gridworld.grid.Location;
+
+/**
+ * Measures the basic grid operations on every grid implementation. Each invocation works on the
+ * next of a fixed ring of random probe locations, so occupied and empty cells are mixed in the
+ * proportion given by <code>density</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GridBenchmark {
+  private static final int PROBES = 1 << 12;
+  private static final int PROBE_MASK = GridBenchmark.PROBES - 1;
+  private static final Object OCCUPANT = new Object();
+
+  @Param({ "BoundedGrid", "UnboundedGrid", "ChunkedGrid" })
+  public String gridType;
+  @Param({ "64", "512" })
+  public int size;
+  @Param({ "0.05", "0.3" })
+  public double density;
+
+  private Grid<Object> grid;
+  private final Location[] probes = new Location[GridBenchmark.PROBES];
+  private int next;
+
+  @Setup
+  public void setUp() {
+    final SplittableRandom random = new SplittableRandom(Scenarios.SEED);
+    this.grid = Scenarios.grid(this.gridType, this.size);
+    Scenarios.fill(this.grid, this.size, this.density, GridBenchmark.OCCUPANT,
+      random);
+    for (int i = 0; i < this.probes.length; i++) {
+      this.probes[i] = Scenarios.randomLocation(random, this.size);
+    }
+    this.next = 0;
+  }
+
+  private Location nextProbe() {
+    return this.probes[this.next++ & GridBenchmark.PROBE_MASK];
+  }
+
+  @Benchmark
+  public Object get() {
+    return this.grid.get(this.nextProbe());
+  }
+
+  @Benchmark
+  public Object getByCoordinates() {
+    final Location loc = this.nextProbe();
+    return this.grid.get(loc.getRow(), loc.getCol());
+  }
+
+  /**
+   * Empties and refills the probed cell, or fills and empties it, leaving the grid unchanged.
+   */
+  @Benchmark
+  public Object putRemove() {
+    final Location loc = this.nextProbe();
+    final Object old = this.grid.remove(loc);
+    if (old != null) {
+      return this.grid.put(loc, old);
+    }
+    this.grid.put(loc, GridBenchmark.OCCUPANT);
+    return this.grid.remove(loc);
+  }
+
+  @Benchmark
+  public ArrayList<Location> getOccupiedLocations() {
+    return this.grid.getOccupiedLocations();
+  }
+
+  @Benchmark
+  public ArrayList<Object> getNeighbors() {
+    return this.grid.getNeighbors(this.nextProbe());
+  }
+}
@@ -0,0 +1,79 @@
+package info.gridworld.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import info.gridworld.cashgrab.Ledger;
+
+/**
+ * Measures transfers between random accounts of a shared ledger, from one thread and from four
+ * contending ones, and applying a batch of transfers. Every account starts with enough money that
+ * transfers rarely come up short.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LedgerBenchmark {
+  private static final int BATCH = 256;
+
+  @Param({ "64", "4096" })
+  public int accounts;
+
+  private Ledger ledger;
+
+  @State(Scope.Thread)
+  public static class Accounts {
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+      this.random = new SplittableRandom(Scenarios.SEED);
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    this.ledger = new Ledger();
+    for (int i = 0; i < this.accounts; i++) {
+      this.ledger.setBalance(i, Long.MAX_VALUE / (2L * this.accounts));
+    }
+  }
+
+  @Benchmark
+  public long transfer(final Accounts accounts) {
+    return this.ledger.transfer(accounts.random.nextInt(this.accounts),
+      accounts.random.nextInt(this.accounts), 1);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public long transferContended(final Accounts accounts) {
+    return this.transfer(accounts);
+  }
+
+  @Benchmark
+  public long batch(final Accounts accounts) {
+    final Ledger.Batch batch = this.ledger.batch();
+    for (int i = 0; i < LedgerBenchmark.BATCH; i++) {
+      batch.add(accounts.random.nextInt(this.accounts),
+        accounts.random.nextInt(this.accounts), 1);
+    }
+    return batch.apply();
+  }
+}
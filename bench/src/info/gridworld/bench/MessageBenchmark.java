@@ -0,0 +1,93 @@
+package info.gridworld.bench;
+
+import java.io.Serializable;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import info.gridworld.actor.Action;
+import info.gridworld.actor.Actions.MessageAction;
+import info.gridworld.actor.Shell;
+import info.gridworld.actor.ShellWorld;
+import info.gridworld.actor.ShellWorld.Watchman;
+import info.gridworld.actor.Util.Either;
+import info.gridworld.cashgrab.HunterCritter.MatingCall;
+
+/**
+ * Measures sending a message through {@link MessageAction#impl(double)}: copying the payload and
+ * delivering it to the recipients, either one shell by id or everybody within shouting range. The
+ * watchman handles each message right away, as it would at the end of an act phase.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageBenchmark {
+  @Param({ "string", "matingCall" })
+  public String payload;
+  @Param({ "0.05", "0.3" })
+  public double density;
+
+  private static final int SIZE = 64;
+  private static final double MAX_DIST = 5;
+
+  private final BiConsumer<Shell, Action> impl =
+    MessageAction.impl(MessageBenchmark.MAX_DIST);
+  private Watchman watchman;
+  private Shell[] shells;
+  private Serializable message;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    final ShellWorld world = Scenarios.cashGrab("BoundedGrid",
+      MessageBenchmark.SIZE, this.density, "hunter");
+    this.watchman = world.getWatchman();
+    this.shells = world.getGrid().getOccupiedLocations().stream()
+      .map(world.getGrid()::get).filter(a -> a instanceof Shell)
+      .toArray(Shell[]::new);
+    this.message = this.payload.equals("string") ? "Where are you?"
+      : new MatingCall(new MatingCall.Info(new UUID(1, 2), 3, 90.0, 2.0, null),
+        true, 0);
+    this.next = 0;
+  }
+
+  private Shell nextShell() {
+    final Shell shell = this.shells[this.next];
+    this.next = this.next + 1 == this.shells.length ? 0 : this.next + 1;
+    return shell;
+  }
+
+  @Benchmark
+  public Shell sendById() {
+    final Shell from = this.nextShell();
+    final Shell to = this.shells[this.next];
+    this.impl.accept(from,
+      new MessageAction(Either.right(Either.left(to.getId())), this.message));
+    this.watchman.drain(from);
+    return from;
+  }
+
+  @Benchmark
+  public Shell shout() {
+    final Shell from = this.nextShell();
+    this.impl.accept(from, new MessageAction(
+      Either.left(MessageBenchmark.MAX_DIST), this.message));
+    this.watchman.drain(from);
+    return from;
+  }
+}
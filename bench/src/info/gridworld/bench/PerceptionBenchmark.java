@@ -0,0 +1,79 @@
+package info.gridworld.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import info.gridworld.actor.Actor;
+import info.gridworld.actor.ActorEvents.StepEvent;
+import info.gridworld.actor.Shell;
+import info.gridworld.actor.ShellWorld;
+import info.gridworld.actor.Util;
+
+/**
+ * Measures what a shell pays to perceive its surroundings: the radius query alone, and the whole
+ * {@link Shell#respond} that builds the environment and asks the brain for its next actions. The
+ * world is never stepped, so every invocation sees the same layout.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PerceptionBenchmark {
+  @Param({ "BoundedGrid", "ChunkedGrid" })
+  public String gridType;
+  @Param({ "64", "256" })
+  public int size;
+  @Param({ "0.05", "0.3" })
+  public double density;
+  @Param({ "caleb", "hunter", "mixed" })
+  public String brains;
+  @Param({ "3" })
+  public double radius;
+
+  private Shell[] shells;
+  private StepEvent event;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    final ShellWorld world = Scenarios.cashGrab(this.gridType, this.size,
+      this.density, this.brains);
+    this.shells = world.getGrid().getOccupiedLocations().stream()
+      .map(world.getGrid()::get).filter(a -> a instanceof Shell)
+      .toArray(Shell[]::new);
+    this.event = new StepEvent(world);
+    this.next = 0;
+  }
+
+  private Shell nextShell() {
+    final Shell shell = this.shells[this.next];
+    this.next = this.next + 1 == this.shells.length ? 0 : this.next + 1;
+    return shell;
+  }
+
+  @Benchmark
+  public long actorsInRadius() {
+    final Actor self = this.nextShell();
+    return Util.actorsInRadius(self, this.radius).count();
+  }
+
+  @Benchmark
+  public Shell respond() {
+    final Shell self = this.nextShell();
+    self.respond(this.event);
+    return self;
+  }
+}
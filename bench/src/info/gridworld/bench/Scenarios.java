@@ -0,0 +1,164 @@
+package info.gridworld.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import info.gridworld.actor.Action;
+import info.gridworld.actor.ActionTable;
+import info.gridworld.actor.Actions.ColorAction;
+import info.gridworld.actor.Actions.MessageAction;
+import info.gridworld.actor.Actions.MoveAction;
+import info.gridworld.actor.Actions.TurnAction;
+import info.gridworld.actor.Actor;
+import info.gridworld.actor.ActorListener;
+import info.gridworld.actor.ReportEvents.CollisionReportEvent;
+import info.gridworld.actor.ReportEvents.MessageReportEvent;
+import info.gridworld.actor.Shell;
+import info.gridworld.actor.ShellWorld;
+import info.gridworld.actor.Util;
+import info.gridworld.cashgrab.Actions.CollectCoinAction;
+import info.gridworld.cashgrab.Actions.ConsumeAction;
+import info.gridworld.cashgrab.CalebBug;
+import info.gridworld.cashgrab.CashGrab;
+import info.gridworld.cashgrab.HunterCritter;
+import info.gridworld.grid.BoundedGrid;
+import info.gridworld.grid.ChunkedGrid;
+import info.gridworld.grid.Grid;
+import info.gridworld.grid.Location;
+import info.gridworld.grid.UnboundedGrid;
+import javafx.util.Pair;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Builds the grids and worlds the benchmarks run on. Everything is placed with a fixed seed, so
+ * two runs with the same parameters measure the same layout.
+ */
+@UtilityClass
+class Scenarios {
+  static final long SEED = 0x5EED_CAFEL;
+
+  /**
+   * Creates an empty grid by simple class name. Unbounded grids have no size of their own;
+   * {@link #randomLocation(SplittableRandom, int)} keeps their occupants in a
+   * <code>size</code>-by-<code>size</code> square.
+   *
+   * @param type <code>BoundedGrid</code>, <code>UnboundedGrid</code> or <code>ChunkedGrid</code>
+   * @param size the number of rows and columns of a bounded grid
+   * @return the new grid
+   */
+  <E> Grid<E> grid(final String type, final int size) {
+    switch (type) {
+    case "BoundedGrid":
+      return new BoundedGrid<>(size, size);
+    case "UnboundedGrid":
+      return new UnboundedGrid<>();
+    case "ChunkedGrid":
+      return new ChunkedGrid<>();
+    default:
+      throw new IllegalArgumentException("Unknown grid type " + type);
+    }
+  }
+
+  Location randomLocation(final SplittableRandom random, final int size) {
+    return new Location(random.nextInt(size), random.nextInt(size));
+  }
+
+  /**
+   * Fills about <code>density * size * size</code> cells of a grid with the given occupant.
+   */
+  <E> void fill(final Grid<E> grid, final int size, final double density,
+    final E occupant, final SplittableRandom random) {
+    final int count = (int) (density * size * size);
+    int placed = 0;
+    while (placed < count) {
+      final Location loc = Scenarios.randomLocation(random, size);
+      if (grid.get(loc) == null) {
+        grid.put(loc, occupant);
+        placed++;
+      }
+    }
+  }
+
+  /**
+   * Builds a CashGrab world of the given shape: <code>density * size * size</code> shells whose
+   * brains follow <code>brains</code> (<code>caleb</code>, <code>hunter</code> or
+   * <code>mixed</code>), plus one coin for every four CalebBugs.
+   *
+   * @param gridType the grid class, see {@link #grid(String, int)}
+   * @param size the side of the populated square
+   * @param density the fraction of cells holding a shell
+   * @param brains the brain mix
+   * @return the populated world
+   */
+  ShellWorld cashGrab(final String gridType, final int size,
+    final double density, final String brains) {
+    final ShellWorld world =
+      new ShellWorld(Scenarios.<Actor> grid(gridType, size));
+    world.setSeed(Scenarios.SEED);
+    world.getWatchman()
+      .addImpl(CollisionReportEvent.class, CollisionReportEvent.impl())
+      .addImpl(MessageReportEvent.class, MessageReportEvent.impl());
+    final Map<Class<? extends Action>, BiConsumer<Shell, Action>> baseImpls =
+      new HashMap<>();
+    baseImpls.put(MessageAction.class, MessageAction.impl(5));
+    baseImpls.put(MoveAction.class, MoveAction.impl(1));
+    baseImpls.put(TurnAction.class, TurnAction.impl());
+    baseImpls.put(ColorAction.class, ColorAction.impl());
+    baseImpls.put(CollectCoinAction.class, CollectCoinAction.impl(2, 1));
+    baseImpls.put(ConsumeAction.class, ConsumeAction.impl(1));
+    final ActionTable actionTable = ActionTable.DEFAULT.withAll(baseImpls);
+    final SplittableRandom random = new SplittableRandom(Scenarios.SEED);
+    final AtomicReference<Integer> id = new AtomicReference<>(0);
+    final AtomicReference<Integer> bankId = new AtomicReference<>(0);
+    final CashGrab.Bank bank = new CashGrab.Bank();
+    final int count = (int) (density * size * size);
+    int calebs = 0;
+    for (int i = 0; i < count; i++) {
+      final boolean caleb;
+      switch (brains) {
+      case "caleb":
+        caleb = true;
+        break;
+      case "hunter":
+        caleb = false;
+        break;
+      case "mixed":
+        caleb = (i & 1) == 0;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown brain mix " + brains);
+      }
+      final ActorListener brain =
+        caleb ? new CalebBug() : new HunterCritter((i & 2) == 0);
+      final Shell shell =
+        Util.genShell(world, id, brain).setActionTable(actionTable);
+      if (caleb) {
+        shell.tag(CashGrab.Tags.BANK,
+          new Pair<>(bank, bankId.getAndUpdate(n -> n + 1)))
+          .tag(Shell.Tags.PUSHABLE, true);
+        calebs++;
+      } else {
+        shell.tag(CashGrab.Tags.IS_FEMALE, (i & 2) == 0)
+          .tag(CashGrab.Tags.PREDATOR, true)
+          .tag(Shell.Tags.PUSHABLE, true);
+      }
+      Scenarios.place(world, shell, size, random);
+    }
+    for (int i = 0; i < calebs / 4; i++) {
+      Scenarios.place(world, CashGrab.genCoin(bankId, bank, 5), size, random);
+    }
+    return world;
+  }
+
+  private void place(final ShellWorld world, final Actor actor, final int size,
+    final SplittableRandom random) {
+    Location loc;
+    do {
+      loc = Scenarios.randomLocation(random, size);
+    } while (world.getGrid().get(loc) != null);
+    world.add(loc, actor);
+  }
+}
@@ -0,0 +1,59 @@
+package info.gridworld.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import info.gridworld.actor.ShellWorld;
+
+/**
+ * Measures whole steps of a CashGrab world. The world is rebuilt before every iteration, because
+ * hunters eat and coins run out, and a world left running would drift away from its parameters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StepBenchmark {
+  @Param({ "BoundedGrid", "ChunkedGrid" })
+  public String gridType;
+  @Param({ "64", "256" })
+  public int size;
+  @Param({ "0.02", "0.1" })
+  public double density;
+  @Param({ "caleb", "hunter", "mixed" })
+  public String brains;
+  @Param({ "1" })
+  public int parallelism;
+  @Param({ "false", "true" })
+  public boolean simultaneous;
+
+  private ShellWorld world;
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    this.world = Scenarios.cashGrab(this.gridType, this.size, this.density,
+      this.brains);
+    this.world.setParallelism(this.parallelism)
+      .setSimultaneous(this.simultaneous);
+  }
+
+  @Benchmark
+  public ShellWorld step() {
+    this.world.step();
+    return this.world;
+  }
+}
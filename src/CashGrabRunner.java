@@ -1,3 +1,4 @@
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
@@ -5,6 +6,7 @@ import java.util.function.BiConsumer;
 import java.util.stream.Stream;
 
 import info.gridworld.actor.Action;
+import info.gridworld.actor.ActionTable;
 import info.gridworld.actor.Actions.ColorAction;
 import info.gridworld.actor.Actions.MessageAction;
 import info.gridworld.actor.Actions.MoveAction;
@@ -21,14 +23,48 @@ import info.gridworld.cashgrab.Actions.ConsumeAction;
 import info.gridworld.cashgrab.CalebBug;
 import info.gridworld.cashgrab.CashGrab;
 import info.gridworld.cashgrab.HunterCritter;
+import info.gridworld.cashgrab.Journal;
 import info.gridworld.grid.BoundedGrid;
 import info.gridworld.grid.Grid;
+import info.gridworld.world.HeadlessRunner;
+import info.gridworld.world.RandomService;
 import javafx.util.Pair;
 
 public class CashGrabRunner {
+  private static final long DEFAULT_HEADLESS_STEPS = 1000;
+
+  /**
+   * Starts CashGrab in a window, or with <code>--headless [steps [seed]]</code> runs it without a
+   * display for the given number of steps and prints the seed and the step timings. If the system
+   * property <code>cashgrab.journal</code> names a directory, every change to the bank is recorded
+   * in a {@link Journal} there, which is closed when the program exits. The directory must not hold
+   * an earlier run's journal.
+   */
   public static void main(String[] args) {
+    final boolean headless = args.length > 0 && args[0].equals("--headless");
+    if (headless) {
+      System.setProperty("java.awt.headless", "true");
+    }
+    final long seed = (headless && args.length > 2) ? Long.parseLong(args[2])
+      : new RandomService().getSeed();
+    final ShellWorld world = CashGrabRunner.createWorld(seed);
+    if (headless) {
+      final long steps = args.length > 1 ? Long.parseLong(args[1])
+        : CashGrabRunner.DEFAULT_HEADLESS_STEPS;
+      System.out.println("seed " + seed);
+      System.out.println(new HeadlessRunner<>(world).run(steps));
+      System.out.printf("perception reuse %.1f%%%n",
+        100 * world.getPerceptionReuseRate());
+      System.out.println("digest " + world.digest());
+    } else {
+      world.show();
+    }
+  }
+
+  public static ShellWorld createWorld(final long seed) {
     final Grid<Actor> grid = new BoundedGrid<>(10, 10);
     final ShellWorld world = new ShellWorld(grid);
+    world.setSeed(seed);
     world.getWatchman()
       .addImpl(CollisionReportEvent.class, CollisionReportEvent.impl())
       .addImpl(MessageReportEvent.class, MessageReportEvent.impl());
@@ -40,10 +76,18 @@ public class CashGrabRunner {
     baseImpls.put(ColorAction.class, ColorAction.impl());
     baseImpls.put(CollectCoinAction.class, CollectCoinAction.impl(2, 1));
     baseImpls.put(ConsumeAction.class, ConsumeAction.impl(1));
+    final ActionTable actionTable = ActionTable.DEFAULT.withAll(baseImpls);
     final Stream.Builder<Actor> players = Stream.builder();
     final AtomicReference<Integer> id = new AtomicReference<>(0);
     final AtomicReference<Integer> bankId = new AtomicReference<>(0);
     final CashGrab.Bank bank = new CashGrab.Bank();
+    final String journalDir = System.getProperty("cashgrab.journal");
+    if (journalDir != null) {
+      final Journal journal =
+        new Journal(Paths.get(journalDir), world::getSteps);
+      journal.attach(bank.getLedger());
+      Runtime.getRuntime().addShutdownHook(new Thread(journal::close));
+    }
     Util.scatter(world,
       Stream.generate(() -> CashGrab.genCoin(bankId, bank, 5)).limit(1));
     final Stream.Builder<ActorListener> brains = Stream.builder();
@@ -62,10 +106,10 @@ public class CashGrabRunner {
     Util.scatter(world, Stream.generate(() -> {
       final boolean female = isFemale.getAndUpdate(b -> !b);
       return Util.genShell(world, id, new HunterCritter(female))
-        .addAllImpls(baseImpls).tag(CashGrab.Tags.IS_FEMALE.getTag(), female)
-        .tag(CashGrab.Tags.PREDATOR.getTag(), true)
-        .tag(Shell.Tags.PUSHABLE.getTag(), true);
+        .setActionTable(actionTable).tag(CashGrab.Tags.IS_FEMALE, female)
+        .tag(CashGrab.Tags.PREDATOR, true)
+        .tag(Shell.Tags.PUSHABLE, true);
     }).limit(0));
-    world.show();
+    return world;
   }
 }
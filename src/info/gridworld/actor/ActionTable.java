@@ -0,0 +1,140 @@
+package info.gridworld.actor;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import info.gridworld.actor.Actions.ColorAction;
+import info.gridworld.actor.Actions.MoveAction;
+import info.gridworld.actor.Actions.TurnAction;
+import lombok.NonNull;
+
+/**
+ * An <code>ActionTable</code> maps action classes to the implementations a shell runs for them.
+ * Tables are immutable, so all shells configured the same way can share a single table instead of
+ * owning a map each: build the table once, e.g. as {@link Util#genShells} does, and hand it to
+ * every shell. A table also remembers the last table derived from it with equal implementations,
+ * for as long as anything else uses that table, so shells that add the same implementations one by
+ * one still end up sharing. An action without an implementation of its own runs
+ * the implementation of its nearest superclass that has one; that lookup is resolved once per
+ * class and then cached in a <code>ClassValue</code>.
+ */
+public final class ActionTable {
+  private static final BiConsumer<Shell, Action> NO_IMPL = (shell, action) -> {};
+
+  /**
+   * The table of a new shell: moving one cell, turning and changing color.
+   */
+  public static final ActionTable DEFAULT;
+
+  static {
+    final Map<Class<? extends Action>, BiConsumer<Shell, Action>> impls =
+      new HashMap<>();
+    impls.put(MoveAction.class, MoveAction.impl(1));
+    impls.put(TurnAction.class, TurnAction.impl());
+    impls.put(ColorAction.class, ColorAction.impl());
+    DEFAULT = ActionTable.of(impls);
+  }
+
+  private final Map<Class<? extends Action>, BiConsumer<Shell, Action>> impls;
+  private volatile WeakReference<ActionTable> derived = null;
+  private final ClassValue<BiConsumer<Shell, Action>> resolved =
+    new ClassValue<BiConsumer<Shell, Action>>() {
+      @Override
+      protected BiConsumer<Shell, Action> computeValue(final Class<?> type) {
+        for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+          final BiConsumer<Shell, Action> impl = ActionTable.this.impls.get(clazz);
+          if (impl != null) {
+            return impl;
+          }
+        }
+        return ActionTable.NO_IMPL;
+      }
+    };
+
+  private ActionTable(
+    final Map<Class<? extends Action>, BiConsumer<Shell, Action>> impls) {
+    this.impls = impls;
+  }
+
+  /**
+   * Creates a table with exactly the given implementations.
+   *
+   * @param impls the implementation of each action class
+   * @return a new table for <code>impls</code>
+   */
+  public static ActionTable of(
+    final @NonNull Map<Class<? extends Action>, BiConsumer<Shell, Action>> impls) {
+    return new ActionTable(Collections.unmodifiableMap(new HashMap<>(impls)));
+  }
+
+  /**
+   * Gets the table with this table's implementations plus one more.
+   *
+   * @param clazz the action class
+   * @param impl the implementation to run for <code>clazz</code>
+   * @return a table with <code>impl</code> added or replaced
+   */
+  public ActionTable with(final @NonNull Class<? extends Action> clazz,
+    final @NonNull BiConsumer<Shell, Action> impl) {
+    if (this.impls.get(clazz) == impl) {
+      return this;
+    }
+    final Map<Class<? extends Action>, BiConsumer<Shell, Action>> merged =
+      new HashMap<>(this.impls);
+    merged.put(clazz, impl);
+    return this.derive(merged);
+  }
+
+  /**
+   * Gets the table with this table's implementations plus the given ones.
+   *
+   * @param impls the implementations to add or replace
+   * @return a table with <code>impls</code> added or replaced
+   */
+  public ActionTable withAll(
+    final @NonNull Map<Class<? extends Action>, BiConsumer<Shell, Action>> impls) {
+    final Map<Class<? extends Action>, BiConsumer<Shell, Action>> merged =
+      new HashMap<>(this.impls);
+    merged.putAll(impls);
+    return merged.equals(this.impls) ? this : this.derive(merged);
+  }
+
+  /**
+   * Gets the table derived from this one last if it has the given implementations, or a new one.
+   */
+  private ActionTable derive(
+    final Map<Class<? extends Action>, BiConsumer<Shell, Action>> impls) {
+    final WeakReference<ActionTable> ref = this.derived;
+    final ActionTable last = ref == null ? null : ref.get();
+    if (last != null && last.impls.equals(impls)) {
+      return last;
+    }
+    final ActionTable table = ActionTable.of(impls);
+    this.derived = new WeakReference<>(table);
+    return table;
+  }
+
+  /**
+   * Gets the implementations of this table.
+   *
+   * @return an unmodifiable map from action class to implementation
+   */
+  public Map<Class<? extends Action>, BiConsumer<Shell, Action>> getImpls() {
+    return this.impls;
+  }
+
+  /**
+   * Finds the implementation to run for an action class.
+   *
+   * @param clazz the class of an action
+   * @return the implementation for <code>clazz</code> or its nearest superclass, or
+   *         <code>null</code> if there is none
+   */
+  public BiConsumer<Shell, Action> get(final Class<?> clazz) {
+    final BiConsumer<Shell, Action> impl = this.resolved.get(clazz);
+    return impl == ActionTable.NO_IMPL ? null : impl;
+  }
+}
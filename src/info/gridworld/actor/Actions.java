@@ -1,12 +1,7 @@
 package info.gridworld.actor;
 
 import java.awt.Color;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.nio.channels.Channels;
-import java.nio.channels.Pipe;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
@@ -14,6 +9,7 @@ import info.gridworld.actor.Util.Either;
 import info.gridworld.grid.Location;
 import javafx.util.Pair;
 import lombok.Data;
+import lombok.NonNull;
 import lombok.Value;
 import lombok.val;
 import lombok.experimental.UtilityClass;
@@ -34,32 +30,16 @@ public class Actions {
     }
 
     public static BiConsumer<Shell, Action> impl(final double maxDist) {
+      return MessageAction.impl(maxDist, MessageCodec.getDefault());
+    }
+
+    public static BiConsumer<Shell, Action> impl(final double maxDist,
+      final @NonNull MessageCodec codec) {
       return (final Shell that, final Action a) -> {
         val scope = ((MessageAction) a).getRecipient();
-        val messageIn = ((MessageAction) a).getMessage();
-        Serializable message_ = null;
-        Pipe pipe_ = null;
-        try {
-          pipe_ = Pipe.open();
-        } catch (IOException e) {
-          e.printStackTrace();
-        }
-        val pipe = pipe_;
-        try {
-          new ObjectOutputStream(Channels.newOutputStream(pipe_.sink()))
-            .writeObject(messageIn);
-          try {
-            message_ = (Serializable) new ObjectInputStream(
-              Channels.newInputStream(pipe.source())).readObject();
-          } catch (ClassNotFoundException e) {
-            e.printStackTrace();
-          }
-        } catch (IOException e) {
-          e.printStackTrace();
-        }
-        val message = message_;
+        val message = codec.copy(((MessageAction) a).getMessage());
         val watchman = that.getWatchman();
-        Function<Integer, ReportEvents.MessageReportEvent> report =
+        Function<Integer, ReportEvent> report =
           id -> new ReportEvents.MessageReportEvent(that, that.getId(), id,
             message);
         if (scope.isRight()) {
@@ -76,16 +56,21 @@ public class Actions {
             val targetLoc =
               new Location((int) (loc.getRow() + offsets.getKey()),
                 (int) (loc.getCol() + offsets.getValue()));
+            if (!grid.isValid(targetLoc)) {
+              return;
+            }
             final Actor target_ = grid.get(targetLoc);
             if ((target_ == null) || !(target_ instanceof Shell)) {
               return;
             }
             final Shell target = (Shell) target_;
-            watchman.report(report.apply(target.getId()));
+            that.report(report.apply(target.getId()));
           } else {
             val recipientId = recipient.getLeftValue();
-            val recipientShell =
-              (Shell) watchman.getWorld().getShells().get(recipientId);
+            val recipientShell = watchman.getWorld().getShell(recipientId);
+            if (recipientShell == null) {
+              return;
+            }
             val loc = that.getLocation();
             val locRect = Util.locToRect(loc);
             val recipientLoc = recipientShell.getLocation();
@@ -96,14 +81,14 @@ public class Actions {
             if (distance > maxDist) {
               return;
             }
-            watchman.report(report.apply(recipient.getLeftValue()));
+            that.report(report.apply(recipient.getLeftValue()));
           }
         } else {
           // shout MessageReportEvent to everybody in earshot
           val shoutRange = Math.min(scope.getLeftValue(), maxDist);
           val listeners = Util.actorsInRadius(that, shoutRange);
           listeners.filter(act -> act instanceof Shell).map(s -> (Shell) s)
-            .map(Shell::getId).map(report).forEach(watchman::report);
+            .map(Shell::getId).map(report).forEach(that::report);
         }
       };
     }
@@ -129,11 +114,10 @@ public class Actions {
         dest = Util.sanitize(dest, grid);
         val destActor = grid.get(dest);
         if (destActor != null) {
-          that.getWatchman().report(new ReportEvents.CollisionReportEvent(that,
-            that, destActor, direction));
+          that.intend(new Intents.Collide(that, destActor, dest, direction));
           return;
         }
-        that.moveTo(dest);
+        that.intend(new Intents.Move(that, dest));
       };
     }
   }
@@ -166,7 +150,8 @@ public class Actions {
     public static BiConsumer<Shell, Action> impl() {
       return (final Shell that, final Action a) -> {
         val color = ((ColorAction) a).getColor();
-        that.setColor(color);
+        that.intend(new Intents.Effect(Intent.Phase.EFFECT, null,
+          () -> that.setColor(color)));
       };
     }
   }
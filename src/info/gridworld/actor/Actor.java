@@ -10,6 +10,8 @@
 package info.gridworld.actor;
 
 import java.awt.Color;
+import java.util.Objects;
+import java.util.SplittableRandom;
 
 import info.gridworld.grid.Grid;
 import info.gridworld.grid.Location;
@@ -23,6 +25,9 @@ public class Actor {
   private Location location;
   private int direction;
   private Color color;
+  private SplittableRandom random;
+  ActorRegistry registry; // registry of the grid this actor is in, if it has one
+  int registrySlot = -1;
 
   /**
    * Constructs a blue actor that is facing north.
@@ -49,6 +54,9 @@ public class Actor {
    * @param newColor the new color
    */
   public void setColor(final Color newColor) {
+    if (this.registry != null && !Objects.equals(this.color, newColor)) {
+      this.registry.changed(this.location);
+    }
     this.color = newColor;
   }
 
@@ -74,6 +82,28 @@ public class Actor {
     }
   }
 
+  /**
+   * Gets the random number generator of this actor. A world assigns each actor its own stream when
+   * the actor is added; an actor that was never added to a world gets an unseeded generator.
+   * 
+   * @return the random number generator of this actor
+   */
+  public SplittableRandom getRandom() {
+    if (this.random == null) {
+      this.random = new SplittableRandom();
+    }
+    return this.random;
+  }
+
+  /**
+   * Sets the random number generator of this actor.
+   * 
+   * @param newRandom the new random number generator
+   */
+  public void setRandom(final SplittableRandom newRandom) {
+    this.random = newRandom;
+  }
+
   /**
    * Gets the grid in which this actor is located.
    * 
@@ -114,6 +144,11 @@ public class Actor {
     gr.put(loc, this);
     this.grid = gr;
     this.location = loc;
+    final ActorRegistry actorRegistry = ActorRegistry.of(gr);
+    if (actorRegistry != null) {
+      actorRegistry.register(this);
+      actorRegistry.changed(loc);
+    }
   }
 
   /**
@@ -129,6 +164,10 @@ public class Actor {
         "The grid contains a different actor at location " + this.location + ".");
     }
     this.grid.remove(this.location);
+    if (this.registry != null) {
+      this.registry.changed(this.location);
+      this.registry.unregister(this);
+    }
     this.grid = null;
     this.location = null;
   }
@@ -161,6 +200,10 @@ public class Actor {
     if (other != null) {
       other.removeSelfFromGrid();
     }
+    if (this.registry != null) {
+      this.registry.changed(this.location);
+      this.registry.changed(newLocation);
+    }
     this.location = newLocation;
     this.grid.put(this.location, this);
   }
@@ -173,6 +216,16 @@ public class Actor {
     this.setDirection(this.getDirection() + Location.HALF_CIRCLE);
   }
 
+  /**
+   * Tells whether <code>act</code> does nothing, so worlds can skip this actor when stepping. The
+   * answer is read once, when this actor is put into a grid with a registry, and must not change.
+   *
+   * @return <code>false</code>, as actors act unless a subclass says otherwise
+   */
+  public boolean isPassive() {
+    return false;
+  }
+
   /**
    * Creates a string that describes this actor.
    * 
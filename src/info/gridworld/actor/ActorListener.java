@@ -2,11 +2,26 @@ package info.gridworld.actor;
 
 import java.util.EventListener;
 import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.stream.Stream;
 
 import info.gridworld.actor.ActorEvent.ActorInfo;
 
+/**
+ * The brain of a shell, which is handed the actors its shell sees as a set of {@link ActorInfo}.
+ * Brains that implement {@link PerceptionListener} instead read a {@link Perception}, which doesn't
+ * build that set.
+ */
 public interface ActorListener extends EventListener {
   Stream<Action> eventResponse(ActorEvent e, ActorInfo self,
     Set<ActorInfo> environment);
+
+  /**
+   * Hands this brain its own random number generator, derived from the world seed and the id of
+   * its shell. Brains that need randomness should draw only from this generator, so that seeded
+   * runs are reproducible even when brains think in parallel.
+   * 
+   * @param random the generator of this brain
+   */
+  default void seed(SplittableRandom random) {}
 }
@@ -0,0 +1,297 @@
+package info.gridworld.actor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import info.gridworld.grid.AbstractGrid;
+import info.gridworld.grid.Grid;
+import info.gridworld.grid.Location;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * An <code>ActorRegistry</code> keeps the actors of a grid in a compact array of slots, so a world
+ * can step its actors without scanning the grid. Actors register themselves in
+ * {@link Actor#putSelfInGrid(Grid, Location)} and leave a tombstone in
+ * {@link Actor#removeSelfFromGrid()}; {@link #compactIfSparse()} squeezes the tombstones out
+ * between steps, keeping the remaining actors in registration order. Passive actors (see
+ * {@link Actor#isPassive()}) are registered without a slot, so stepping never visits them. The
+ * registry also indexes shells by id, can track which parts of the grid its actors have changed,
+ * and queues changes that must wait for the serial part of a step. <br />
+ * A world owns the registry of its grid and attaches it to the grid (see
+ * {@link AbstractGrid#setAttachment(Class, Object)}), where actors put into the grid find it. A
+ * grid that doesn't extend {@link AbstractGrid} can't hold a registry, so its registry stays
+ * detached: actors never register in it, and {@link #refresh()} lists the grid's occupants afresh
+ * before every step instead.
+ */
+public class ActorRegistry {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int MIN_COMPACT_TOMBSTONES = 64;
+
+  private Actor[] slots = new Actor[ActorRegistry.INITIAL_CAPACITY];
+  /**
+   * The number of slots in use, including tombstones.
+   */
+  @Getter private int size = 0;
+  /**
+   * The number of registered actors in slots.
+   */
+  @Getter private int liveCount = 0;
+  /**
+   * The number of registered passive actors, which have no slot.
+   */
+  @Getter private int passiveCount = 0;
+  private final Map<Integer, Shell> shells = new HashMap<>();
+  private DirtyRegions changes = null;
+  private final Queue<Runnable> deferred = new ConcurrentLinkedQueue<>();
+  private final Grid<Actor> grid;
+  /**
+   * Whether this registry is attached to its grid, so actors register in it themselves.
+   */
+  @Getter private final boolean attached;
+
+  private ActorRegistry(final Grid<Actor> grid, final boolean attached) {
+    this.grid = grid;
+    this.attached = attached;
+  }
+
+  /**
+   * Gets the registry attached to a grid, creating and attaching one if necessary. A new registry
+   * is filled with the actors that are already in the grid, in the grid's order of occupied
+   * locations. If the grid can't hold a registry, a detached one is returned.
+   *
+   * @param grid the grid whose actors should be registered
+   * @return the registry of <code>grid</code>
+   */
+  public static ActorRegistry attach(final @NonNull Grid<Actor> grid) {
+    final ActorRegistry attached = ActorRegistry.of(grid);
+    if (attached != null) {
+      return attached;
+    }
+    if (!(grid instanceof AbstractGrid)) {
+      final ActorRegistry registry = new ActorRegistry(grid, false);
+      registry.refresh();
+      return registry;
+    }
+    final ActorRegistry registry = new ActorRegistry(grid, true);
+    ((AbstractGrid<Actor>) grid).setAttachment(ActorRegistry.class, registry);
+    for (final Location loc : grid.getOccupiedLocations()) {
+      final Actor actor = grid.get(loc);
+      if (actor.getGrid() == grid && actor.registry == null) {
+        registry.register(actor);
+      }
+    }
+    return registry;
+  }
+
+  /**
+   * Gets the registry attached to a grid.
+   *
+   * @param grid a grid
+   * @return the registry of <code>grid</code>, or <code>null</code> if it has none
+   */
+  public static ActorRegistry of(final Grid<?> grid) {
+    return grid instanceof AbstractGrid
+      ? ((AbstractGrid<?>) grid).getAttachment(ActorRegistry.class) : null;
+  }
+
+  /**
+   * Brings the slots up to date before a step. An attached registry is compacted if it is sparse
+   * (see {@link #compactIfSparse()}); a detached one is filled afresh with the occupants of its
+   * grid, in the grid's order of occupied locations. Must not be called while the slots are being
+   * iterated.
+   */
+  public void refresh() {
+    if (this.attached) {
+      this.compactIfSparse();
+      return;
+    }
+    Arrays.fill(this.slots, 0, this.size, null);
+    this.size = 0;
+    this.liveCount = 0;
+    this.passiveCount = 0;
+    for (final Location loc : this.grid.getOccupiedLocations()) {
+      final Actor actor = this.grid.get(loc);
+      if (actor.isPassive()) {
+        this.passiveCount++;
+        continue;
+      }
+      if (this.size == this.slots.length) {
+        this.slots = Arrays.copyOf(this.slots, 2 * this.slots.length);
+      }
+      this.slots[this.size++] = actor;
+      this.liveCount++;
+    }
+  }
+
+  /**
+   * Gets the actor in a slot.
+   *
+   * @param slot a slot index, less than {@link #getSize()}
+   * @return the actor in that slot, or <code>null</code> if the actor has been removed
+   */
+  public Actor get(final int slot) {
+    return this.slots[slot];
+  }
+
+  /**
+   * Gets a registered shell by id.
+   *
+   * @param id the id of the shell
+   * @return the shell with that id, or <code>null</code> if no such shell is in the grid
+   */
+  public Shell getShell(final int id) {
+    if (!this.attached) {
+      for (final Location loc : this.grid.getOccupiedLocations()) {
+        final Actor actor = this.grid.get(loc);
+        if (actor instanceof Shell && ((Shell) actor).getId() == id) {
+          return (Shell) actor;
+        }
+      }
+      return null;
+    }
+    return this.shells.get(id);
+  }
+
+  /**
+   * Compacts the slots if at least half of them are tombstones. Must not be called while the slots
+   * are being iterated.
+   *
+   * @return <code>true</code> if the slots were compacted
+   */
+  public boolean compactIfSparse() {
+    final int tombstones = this.size - this.liveCount;
+    if (tombstones < ActorRegistry.MIN_COMPACT_TOMBSTONES
+      || tombstones < this.liveCount) {
+      return false;
+    }
+    this.compact();
+    return true;
+  }
+
+  /**
+   * Removes all tombstones, keeping the actors in registration order. Must not be called while the
+   * slots are being iterated.
+   */
+  public void compact() {
+    int j = 0;
+    for (int i = 0; i < this.size; i++) {
+      final Actor actor = this.slots[i];
+      if (actor != null) {
+        actor.registrySlot = j;
+        this.slots[j++] = actor;
+      }
+    }
+    Arrays.fill(this.slots, j, this.size, null);
+    this.size = j;
+  }
+
+  /**
+   * Starts or stops recording where actors are added, removed, moved or recolored. While tracking,
+   * {@link #isChangedNear(Location, int)} reports whether anything may have changed near a location
+   * since the last {@link #clearChanges()}. A detached registry never hears of changes, so it
+   * doesn't track them.
+   *
+   * @param tracking <code>true</code> to record changes
+   */
+  public void setTrackingChanges(final boolean tracking) {
+    if (!tracking || !this.attached) {
+      this.changes = null;
+    } else if (this.changes == null) {
+      this.changes = new DirtyRegions();
+    }
+  }
+
+  public boolean isTrackingChanges() {
+    return this.changes != null;
+  }
+
+  /**
+   * Checks whether anything within a square reach of a location may have changed since the last
+   * {@link #clearChanges()}. May be called from several threads at once, as long as no actor
+   * changes at the same time.
+   *
+   * @param loc the center
+   * @param reach the half side of the square, in cells
+   * @return <code>false</code> only if changes are tracked and none were recorded near
+   *         <code>loc</code>
+   */
+  public boolean isChangedNear(final @NonNull Location loc, final int reach) {
+    return this.changes == null
+      || this.changes.anyNear(loc.getRow(), loc.getCol(), reach);
+  }
+
+  /**
+   * Forgets all recorded changes.
+   */
+  public void clearChanges() {
+    if (this.changes != null) {
+      this.changes.clear();
+    }
+  }
+
+  /**
+   * Queues a change to the grid to be made at the end of the act phase of the world's next step,
+   * one change at a time. May be called from any thread, e.g. by a callback that may run while
+   * other threads read the grid.
+   *
+   * @param change the change to make
+   */
+  public void defer(final @NonNull Runnable change) {
+    this.deferred.add(change);
+  }
+
+  /**
+   * Makes the deferred changes in the order they were queued, including any they queue in turn.
+   * Worlds call this at the end of their act phase, from the thread that steps them.
+   */
+  public void runDeferred() {
+    for (Runnable change; (change = this.deferred.poll()) != null;) {
+      change.run();
+    }
+  }
+
+  /**
+   * Records that the cell at a location has changed, if changes are tracked.
+   */
+  void changed(final Location loc) {
+    if (this.changes != null) {
+      this.changes.mark(loc.getRow(), loc.getCol());
+    }
+  }
+
+  void register(final Actor actor) {
+    actor.registry = this;
+    if (actor.isPassive()) {
+      actor.registrySlot = -1;
+      this.passiveCount++;
+    } else {
+      if (this.size == this.slots.length) {
+        this.slots = Arrays.copyOf(this.slots, 2 * this.slots.length);
+      }
+      actor.registrySlot = this.size;
+      this.slots[this.size++] = actor;
+      this.liveCount++;
+    }
+    if (actor instanceof Shell) {
+      this.shells.put(((Shell) actor).getId(), (Shell) actor);
+    }
+  }
+
+  void unregister(final Actor actor) {
+    if (actor.registrySlot < 0) {
+      this.passiveCount--;
+    } else {
+      this.slots[actor.registrySlot] = null;
+      this.liveCount--;
+    }
+    actor.registry = null;
+    actor.registrySlot = -1;
+    if (actor instanceof Shell) {
+      this.shells.remove(((Shell) actor).getId(), actor);
+    }
+  }
+}
@@ -9,10 +9,9 @@
  */
 package info.gridworld.actor;
 
-import java.util.ArrayList;
-
 import info.gridworld.grid.Grid;
 import info.gridworld.grid.Location;
+import info.gridworld.world.RandomService;
 import info.gridworld.world.World;
 
 /**
@@ -22,11 +21,15 @@ import info.gridworld.world.World;
 public class ActorWorld extends World<Actor> {
   private static final String DEFAULT_MESSAGE =
     "Click on a grid location to construct or manipulate an actor.";
+  private long actorSerial = 0;
+  private ActorRegistry registry;
 
   /**
    * Constructs an actor world with a default grid.
    */
-  public ActorWorld() {}
+  public ActorWorld() {
+    this.registry = ActorRegistry.attach(this.getGrid());
+  }
 
   /**
    * Constructs an actor world with a given grid.
@@ -35,6 +38,22 @@ public class ActorWorld extends World<Actor> {
    */
   public ActorWorld(final Grid<Actor> grid) {
     super(grid);
+    this.registry = ActorRegistry.attach(grid);
+  }
+
+  @Override
+  public void setGrid(final Grid<Actor> newGrid) {
+    this.registry = ActorRegistry.attach(newGrid);
+    super.setGrid(newGrid);
+  }
+
+  /**
+   * Gets the registry of the actors in this world's grid.
+   * 
+   * @return the actor registry
+   */
+  public ActorRegistry getRegistry() {
+    return this.registry;
   }
 
   @Override
@@ -45,19 +64,49 @@ public class ActorWorld extends World<Actor> {
     super.show();
   }
 
+  /**
+   * Lets every actor in the grid act once, in registration order, or in the grid's order of
+   * occupied locations if the grid can't hold a registry (see {@link ActorRegistry}), skipping
+   * passive actors (see {@link Actor#isPassive()}). Actors added during the step do not act until
+   * the next step, and actors removed during the step don't act at all. Finally the changes
+   * deferred to the registry (see {@link ActorRegistry#defer(Runnable)}) are made.
+   */
   @Override
   public void step() {
     final Grid<Actor> gr = this.getGrid();
-    final ArrayList<Actor> actors = new ArrayList<Actor>();
-    for (final Location loc : gr.getOccupiedLocations()) {
-      actors.add(gr.get(loc));
-    }
-    for (final Actor a : actors) {
+    this.registry.refresh();
+    final int n = this.registry.getSize();
+    for (int i = 0; i < n; i++) {
+      final Actor a = this.registry.get(i);
       // only act if another actor hasn't removed a
-      if (a.getGrid() == gr) {
+      if (a != null && a.getGrid() == gr) {
         a.act();
       }
     }
+    this.registry.runDeferred();
+  }
+
+  /**
+   * Computes a digest of the state of this world: the class, location, direction and color of
+   * every actor. The digest does not depend on the order in which the grid lists its occupants, so
+   * two runs that end in the same state have the same digest.
+   * 
+   * @return a digest of all actors in this world
+   */
+  public long digest() {
+    final Grid<Actor> gr = this.getGrid();
+    long digest = 0;
+    for (final Location loc : gr.getOccupiedLocations()) {
+      final Actor a = gr.get(loc);
+      long h = a.getClass().getName().hashCode();
+      h = 31 * h + loc.getRow();
+      h = 31 * h + loc.getCol();
+      h = 31 * h + a.getDirection();
+      h = 31 * h + (a.getColor() == null ? 0 : a.getColor().getRGB());
+      // mixed, so digests can be combined by addition
+      digest += RandomService.mix(h);
+    }
+    return digest;
   }
 
   /**
@@ -68,9 +117,24 @@ public class ActorWorld extends World<Actor> {
    */
   @Override
   public void add(final Location loc, final Actor occupant) {
+    occupant.setRandom(this.getRandom().forActor(this.randomStreamId(occupant)));
     occupant.putSelfInGrid(this.getGrid(), loc);
   }
 
+  /**
+   * Picks the id of the random stream for a newly added actor. Plain actors are numbered in the
+   * order they are added; the numbers are negative so they never collide with shell ids.
+   * 
+   * @param occupant the actor being added
+   * @return the id of the actor's random stream
+   */
+  protected long randomStreamId(final Actor occupant) {
+    if (occupant instanceof Shell) {
+      return ((Shell) occupant).getId();
+    }
+    return -1 - this.actorSerial++;
+  }
+
   /**
    * Adds an occupant at a random empty location.
    * 
@@ -92,7 +92,7 @@ public class Critter extends Actor {
     if (n == 0) {
       return this.getLocation();
     }
-    final int r = (int) (Math.random() * n);
+    final int r = this.getRandom().nextInt(n);
     return locs.get(r);
   }
 
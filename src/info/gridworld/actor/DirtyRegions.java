@@ -0,0 +1,108 @@
+package info.gridworld.actor;
+
+import java.util.Arrays;
+
+/**
+ * A <code>DirtyRegions</code> set remembers which 8-by-8 blocks of a grid have changed, so a shell
+ * can tell whether anything within its sight may differ from what it saw before. The blocks are
+ * kept in an open-addressing table of packed block coordinates. <br />
+ * Marking is not thread-safe, but any number of threads may query a set that is not being marked.
+ */
+final class DirtyRegions {
+  private static final int SHIFT = 3;
+  private static final int INITIAL_CAPACITY = 64;
+  // block coordinates are ints shifted right, so no packed key can be this
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private long[] keys = DirtyRegions.newTable(DirtyRegions.INITIAL_CAPACITY);
+  private int count = 0;
+
+  /**
+   * Marks the block containing a cell as changed.
+   */
+  void mark(final int row, final int col) {
+    final long key = DirtyRegions.pack(row >> DirtyRegions.SHIFT,
+      col >> DirtyRegions.SHIFT);
+    final int slot = this.find(key);
+    if (this.keys[slot] == key) {
+      return;
+    }
+    this.keys[slot] = key;
+    if (2 * ++this.count > this.keys.length) {
+      final long[] old = this.keys;
+      this.keys = DirtyRegions.newTable(2 * old.length);
+      for (final long k : old) {
+        if (k != DirtyRegions.EMPTY) {
+          this.keys[this.find(k)] = k;
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks whether any cell within a square reach of a cell may have changed.
+   *
+   * @param row the row of the center
+   * @param col the column of the center
+   * @param reach the half side of the square, in cells
+   * @return <code>false</code> if no block overlapping the square has been marked
+   */
+  boolean anyNear(final int row, final int col, final int reach) {
+    if (this.count == 0) {
+      return false;
+    }
+    final int fromRow = (row - reach) >> DirtyRegions.SHIFT;
+    final int toRow = (row + reach) >> DirtyRegions.SHIFT;
+    final int fromCol = (col - reach) >> DirtyRegions.SHIFT;
+    final int toCol = (col + reach) >> DirtyRegions.SHIFT;
+    for (int r = fromRow; r <= toRow; r++) {
+      for (int c = fromCol; c <= toCol; c++) {
+        final long key = DirtyRegions.pack(r, c);
+        if (this.keys[this.find(key)] == key) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Forgets all marked blocks.
+   */
+  void clear() {
+    if (this.count == 0) {
+      return;
+    }
+    if (this.keys.length > DirtyRegions.INITIAL_CAPACITY
+      && 8 * this.count < this.keys.length) {
+      // a burst of changes is over, so give the memory back
+      this.keys = DirtyRegions.newTable(DirtyRegions.INITIAL_CAPACITY);
+    } else {
+      Arrays.fill(this.keys, DirtyRegions.EMPTY);
+    }
+    this.count = 0;
+  }
+
+  private static long[] newTable(final int capacity) {
+    final long[] table = new long[capacity];
+    Arrays.fill(table, DirtyRegions.EMPTY);
+    return table;
+  }
+
+  private static long pack(final int blockRow, final int blockCol) {
+    return ((long) blockRow << 32) | (blockCol & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Finds the slot holding a key, or the empty slot where it would be inserted.
+   */
+  private int find(final long key) {
+    final int mask = this.keys.length - 1;
+    final long h = key * 0x9E3779B97F4A7C15L;
+    int slot = (int) (h ^ (h >>> 32)) & mask;
+    while (this.keys[slot] != DirtyRegions.EMPTY && this.keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+}
@@ -0,0 +1,10 @@
+package info.gridworld.actor;
+
+import java.io.Serializable;
+
+/**
+ * Marks a message type whose instances never change after construction. {@link MessageCodec}
+ * hands such messages to their recipients by reference instead of copying them. Implementations
+ * must only hold final fields of immutable types.
+ */
+public interface ImmutableMessage extends Serializable {}
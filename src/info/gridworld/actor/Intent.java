@@ -0,0 +1,62 @@
+package info.gridworld.actor;
+
+import info.gridworld.grid.Location;
+
+/**
+ * An <code>Intent</code> is what an action implementation wants to do to the world, planned while
+ * its shell acts and applied by {@link #commit()}. Shells hand their intents to
+ * {@link Shell#intend(Intent)}. A world acting serially commits every intent right away; a world
+ * acting simultaneously (see {@link ShellWorld#setSimultaneous(boolean)}) first lets every shell
+ * plan against the same grid, then grants each claimed cell to a single intent and commits the
+ * granted intents phase by phase.
+ */
+public interface Intent {
+  /**
+   * The phases in which a simultaneous world commits intents, in order.
+   */
+  enum Phase {
+    /**
+     * Actors are taken off the grid. The intents of shells removed in this phase are dropped.
+     */
+    REMOVE,
+    /**
+     * Shells move into cells that were empty when they planned.
+     */
+    MOVE,
+    /**
+     * Shells bump into the actors that were in their way, if those are still there.
+     */
+    COLLIDE,
+    /**
+     * Money changes hands.
+     */
+    TRANSFER,
+    /**
+     * Everything else, such as recoloring.
+     */
+    EFFECT
+  }
+
+  Phase getPhase();
+
+  /**
+   * Gets the cell this intent needs for itself. Of all intents claiming the same cell in a step,
+   * only the one with the highest priority is committed; ties are broken by a lottery drawn from
+   * the world's seed.
+   *
+   * @return the claimed cell, or <code>null</code> if this intent doesn't conflict with others
+   */
+  default Location getClaim() {
+    return null;
+  }
+
+  default int getPriority() {
+    return 0;
+  }
+
+  /**
+   * Applies this intent to the world as it is now, which in a simultaneous world may differ from
+   * the world it was planned against.
+   */
+  void commit();
+}
@@ -0,0 +1,102 @@
+package info.gridworld.actor;
+
+import info.gridworld.grid.Location;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class Intents {
+  /**
+   * Moves a shell into a cell that was empty when the move was planned.
+   */
+  @Value
+  public class Move implements Intent {
+    private final @NonNull Shell shell;
+    private final @NonNull Location dest;
+
+    @Override
+    public Phase getPhase() {
+      return Phase.MOVE;
+    }
+
+    @Override
+    public Location getClaim() {
+      return this.dest;
+    }
+
+    @Override
+    public void commit() {
+      val grid = this.shell.getGrid();
+      if (grid != null && grid.get(this.dest) == null) {
+        this.shell.moveTo(this.dest);
+      }
+    }
+  }
+  /**
+   * Reports that a shell bumped into an actor, if the actor is still where it was.
+   */
+  @Value
+  public class Collide implements Intent {
+    private final @NonNull Shell shell;
+    private final @NonNull Actor collidedWith;
+    private final @NonNull Location dest;
+    private final int direction;
+
+    @Override
+    public Phase getPhase() {
+      return Phase.COLLIDE;
+    }
+
+    @Override
+    public Location getClaim() {
+      return this.dest;
+    }
+
+    @Override
+    public void commit() {
+      val grid = this.shell.getGrid();
+      if (grid == null || this.collidedWith.getGrid() != grid
+        || !this.dest.equals(this.collidedWith.getLocation())) {
+        return;
+      }
+      this.shell.getWatchman().report(new ReportEvents.CollisionReportEvent(
+        this.shell, this.shell, this.collidedWith, this.direction));
+    }
+  }
+  /**
+   * Takes an actor off the grid, wherever it is by then.
+   */
+  @Value
+  public class Remove implements Intent {
+    private final @NonNull Actor target;
+    private final @NonNull Location claim;
+
+    @Override
+    public Phase getPhase() {
+      return Phase.REMOVE;
+    }
+
+    @Override
+    public void commit() {
+      if (this.target.getGrid() != null) {
+        this.target.removeSelfFromGrid();
+      }
+    }
+  }
+  /**
+   * Runs arbitrary code in a given phase.
+   */
+  @Value
+  public class Effect implements Intent {
+    private final @NonNull Phase phase;
+    private final Location claim;
+    private final @NonNull Runnable effect;
+
+    @Override
+    public void commit() {
+      this.effect.run();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package info.gridworld.actor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import lombok.NonNull;
+
+/**
+ * A <code>MessageCodec</code> copies messages on their way from sender to recipient, so neither
+ * side can change what the other one sees. The copy strategy is picked once per message class:
+ * <ul>
+ * <li>instances of {@link ImmutableMessage}, enums, strings, boxed primitives and a few other
+ * immutable library types are passed by reference;</li>
+ * <li>classes with a registered copier are copied by that copier;</li>
+ * <li>everything else is round-tripped through Java serialization in a per-thread buffer that is
+ * reused from message to message.</li>
+ * </ul>
+ */
+public class MessageCodec {
+  private static final int MAX_POOLED_BUFFER = 1 << 16;
+  private static final Set<Class<?>> IMMUTABLE_TYPES =
+    new HashSet<>(Arrays.asList(String.class, Boolean.class, Character.class,
+      Byte.class, Short.class, Integer.class, Long.class, Float.class,
+      Double.class, BigInteger.class, BigDecimal.class, UUID.class));
+  private static final MessageCodec DEFAULT = new MessageCodec();
+
+  private static final class Buffer extends ByteArrayOutputStream {
+    private ByteArrayInputStream toInputStream() {
+      return new ByteArrayInputStream(this.buf, 0, this.count);
+    }
+
+    private int capacity() {
+      return this.buf.length;
+    }
+  }
+
+  private static final ThreadLocal<Buffer> BUFFERS =
+    ThreadLocal.withInitial(Buffer::new);
+
+  private final Map<Class<?>, UnaryOperator<Serializable>> copiers =
+    new ConcurrentHashMap<>();
+
+  /**
+   * Gets the codec used by {@link Actions.MessageAction#impl(double)}.
+   *
+   * @return the shared default codec
+   */
+  public static MessageCodec getDefault() {
+    return MessageCodec.DEFAULT;
+  }
+
+  /**
+   * Registers a hand-written copier for a message class. The copier is only used for instances of
+   * exactly that class, not of its subclasses.
+   *
+   * @param clazz the message class
+   * @param copier a function returning an independent copy of its argument
+   * @return this codec
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends Serializable> MessageCodec addCopier(
+    final @NonNull Class<T> clazz, final @NonNull UnaryOperator<T> copier) {
+    this.copiers.put(clazz, (UnaryOperator<Serializable>) copier);
+    return this;
+  }
+
+  /**
+   * Declares a message class immutable, so its instances are passed by reference. Prefer
+   * implementing {@link ImmutableMessage} for classes you own.
+   *
+   * @param clazz the message class
+   * @return this codec
+   */
+  public MessageCodec addImmutable(final @NonNull Class<? extends Serializable> clazz) {
+    this.copiers.put(clazz, UnaryOperator.identity());
+    return this;
+  }
+
+  /**
+   * Copies a message for delivery.
+   *
+   * @param message the message sent
+   * @return the message to deliver, or <code>null</code> if <code>message</code> is
+   *         <code>null</code> or could not be copied
+   */
+  public Serializable copy(final Serializable message) {
+    if (message == null) {
+      return null;
+    }
+    return this.copiers.computeIfAbsent(message.getClass(), MessageCodec::resolve)
+      .apply(message);
+  }
+
+  private static UnaryOperator<Serializable> resolve(final Class<?> clazz) {
+    if (ImmutableMessage.class.isAssignableFrom(clazz) || clazz.isEnum()
+      || (clazz.getSuperclass() != null && clazz.getSuperclass().isEnum())
+      || MessageCodec.IMMUTABLE_TYPES.contains(clazz)) {
+      return UnaryOperator.identity();
+    }
+    return MessageCodec::serialCopy;
+  }
+
+  private static Serializable serialCopy(final Serializable message) {
+    final Buffer buffer = MessageCodec.BUFFERS.get();
+    buffer.reset();
+    try {
+      try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+        out.writeObject(message);
+      }
+      try (ObjectInputStream in = new ObjectInputStream(buffer.toInputStream())) {
+        return (Serializable) in.readObject();
+      }
+    } catch (IOException | ClassNotFoundException e) {
+      e.printStackTrace();
+      return null;
+    } finally {
+      if (buffer.capacity() > MessageCodec.MAX_POOLED_BUFFER) {
+        // don't pin the memory of one huge message to this thread forever
+        MessageCodec.BUFFERS.remove();
+      }
+    }
+  }
+}
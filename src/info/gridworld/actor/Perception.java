@@ -0,0 +1,348 @@
+package info.gridworld.actor;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import info.gridworld.actor.ActorEvent.ActorInfo;
+import info.gridworld.grid.Grid;
+import info.gridworld.grid.Location;
+import lombok.NonNull;
+
+/**
+ * A <code>Perception</code> is what a shell sees around itself, stored as parallel primitive arrays
+ * of type id, distance, bearing and packed color, sorted by increasing distance. It is computed
+ * lazily, nearest cells first, and only as far as the brain actually looks: the queries
+ * {@link #nearest(int)}, {@link #nearestExcept(int)} and {@link #anyWithin(int, double)} stop at
+ * the first match, and a brain that never touches its perception costs nothing. <br />
+ * Each shell reuses the same instance every step, so a perception is only valid until the next
+ * sense phase of its shell, and a brain must read it before returning its actions: once the act
+ * phase has started the grid no longer matches what the shell saw. <br />
+ * Type ids are assigned once per type name and are the same for every shell, so brains can look
+ * theirs up in advance with {@link #typeId(String)}. {@link #asSet()} offers the same contents as
+ * a set of {@link ActorInfo}, built on first use.
+ */
+public final class Perception {
+  /**
+   * The packed color of an actor without a color.
+   */
+  public static final int NO_COLOR = 0;
+  private static final int INITIAL_CAPACITY = 16;
+  private static final Map<String, Integer> TYPE_IDS = new ConcurrentHashMap<>();
+  private static final List<String> TYPE_NAMES = new ArrayList<>();
+  private static final ClassValue<Integer> TYPE_IDS_BY_CLASS =
+    new ClassValue<Integer>() {
+      @Override
+      protected Integer computeValue(final Class<?> type) {
+        return Perception.typeId(type.getName());
+      }
+    };
+
+  private int size = 0;
+  private int[] typeIds = new int[Perception.INITIAL_CAPACITY];
+  private double[] distances = new double[Perception.INITIAL_CAPACITY];
+  private double[] directions = new double[Perception.INITIAL_CAPACITY];
+  private int[] colors = new int[Perception.INITIAL_CAPACITY];
+  private Set<ActorInfo> set = null;
+
+  private Grid<Actor> grid = null;
+  private int row;
+  private int col;
+  private double radius;
+  private int heading;
+  private PolarOffsets offsets = null;
+  private double[] bearings = null; // of every offset, relative to the heading
+  private int cursor = 0;
+
+  /**
+   * Gets the type id of a type name, assigning a new one on first use.
+   *
+   * @param typeName the name of an actor or brain class
+   * @return the type id of <code>typeName</code>
+   */
+  public static int typeId(final @NonNull String typeName) {
+    final Integer id = Perception.TYPE_IDS.get(typeName);
+    if (id != null) {
+      return id;
+    }
+    synchronized (Perception.TYPE_NAMES) {
+      return Perception.TYPE_IDS.computeIfAbsent(typeName, name -> {
+        Perception.TYPE_NAMES.add(name);
+        return Perception.TYPE_NAMES.size() - 1;
+      });
+    }
+  }
+
+  /**
+   * Gets the type id of an actor, which for a shell is the type of its brain.
+   */
+  static int typeIdOf(final Actor actor) {
+    return actor instanceof Shell
+      ? Perception.TYPE_IDS_BY_CLASS.get(((Shell) actor).getBrain().getClass())
+      : Perception.TYPE_IDS_BY_CLASS.get(actor.getClass());
+  }
+
+  /**
+   * Creates a perception of a given set of actors, e.g. to hand a {@link PerceptionListener} what
+   * a plain {@link ActorListener} would see. Missing distances and directions read as 0, missing
+   * types as the empty type name.
+   *
+   * @param infos the actors perceived
+   * @return a new perception of <code>infos</code>, sorted by distance
+   */
+  public static Perception of(final @NonNull Set<ActorInfo> infos) {
+    final List<ActorInfo> sorted = new ArrayList<>(infos);
+    sorted.sort(Comparator.comparingDouble(Perception::distanceOf));
+    final Perception perception = new Perception();
+    for (final ActorInfo info : sorted) {
+      perception.append(
+        Perception.typeId(info.getType() == null ? "" : info.getType()),
+        Perception.distanceOf(info),
+        info.getDirection() == null ? 0 : info.getDirection(), info.getColor());
+    }
+    perception.set = Collections.unmodifiableSet(infos);
+    return perception;
+  }
+
+  private static double distanceOf(final ActorInfo info) {
+    return info.getDistance() == null ? 0 : info.getDistance();
+  }
+
+  /**
+   * Gets the type name of a type id.
+   *
+   * @param typeId a type id returned by {@link #typeId(String)}
+   * @return the name of the type
+   */
+  public static String typeName(final int typeId) {
+    synchronized (Perception.TYPE_NAMES) {
+      return Perception.TYPE_NAMES.get(typeId);
+    }
+  }
+
+  /**
+   * Gets the number of actors perceived. This computes the whole perception.
+   *
+   * @return the number of actors perceived
+   */
+  public int size() {
+    while (this.advance()) {}
+    return this.size;
+  }
+
+  public int getTypeId(final int i) {
+    this.check(i);
+    return this.typeIds[i];
+  }
+
+  public String getTypeName(final int i) {
+    return Perception.typeName(this.getTypeId(i));
+  }
+
+  public double getDistance(final int i) {
+    this.check(i);
+    return this.distances[i];
+  }
+
+  /**
+   * Gets the bearing of an actor relative to the heading of the perceiving shell.
+   *
+   * @param i the index of the actor, in order of distance
+   * @return the bearing in degrees in [-180, 180), clockwise
+   */
+  public double getDirection(final int i) {
+    this.check(i);
+    return this.directions[i];
+  }
+
+  /**
+   * Gets the color of an actor, packed like {@link Color#getRGB()}.
+   *
+   * @param i the index of the actor, in order of distance
+   * @return the packed color, or {@link #NO_COLOR} if the actor has none
+   */
+  public int getColor(final int i) {
+    this.check(i);
+    return this.colors[i];
+  }
+
+  /**
+   * Finds the nearest actor of a type.
+   *
+   * @param typeId the type id to look for
+   * @return the index of the nearest actor of that type, or -1 if none is in sight
+   */
+  public int nearest(final int typeId) {
+    for (int i = 0; i < this.size || this.advance(); i++) {
+      if (this.typeIds[i] == typeId) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Finds the nearest actor not of a type.
+   *
+   * @param typeId the type id to skip
+   * @return the index of the nearest actor of another type, or -1 if none is in sight
+   */
+  public int nearestExcept(final int typeId) {
+    for (int i = 0; i < this.size || this.advance(); i++) {
+      if (this.typeIds[i] != typeId) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Checks whether an actor of a type is within a distance.
+   *
+   * @param typeId the type id to look for
+   * @param distance the maximum distance, in cells
+   * @return <code>true</code> if such an actor is in sight at most <code>distance</code> away
+   */
+  public boolean anyWithin(final int typeId, final double distance) {
+    for (int i = 0; i < this.size || this.advance(); i++) {
+      if (this.distances[i] > distance) {
+        return false;
+      }
+      if (this.typeIds[i] == typeId) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Counts the actors of a type. This computes the whole perception.
+   *
+   * @param typeId the type id to count
+   * @return the number of actors of that type in sight
+   */
+  public int count(final int typeId) {
+    int count = 0;
+    for (int i = 0; i < this.size(); i++) {
+      if (this.typeIds[i] == typeId) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Gets the contents of this perception as a set of {@link ActorInfo}. The set is built on the
+   * first call after each reset, and computes the whole perception.
+   *
+   * @return an unmodifiable set with one element per distinct actor description
+   */
+  public Set<ActorInfo> asSet() {
+    if (this.set == null) {
+      final Set<ActorInfo> infos = new HashSet<>();
+      for (int i = 0; i < this.size(); i++) {
+        infos.add(ActorInfo.builder().type(Perception.typeName(this.typeIds[i]))
+          .distance(this.distances[i]).direction(this.directions[i])
+          .color(this.colors[i] == Perception.NO_COLOR ? null
+            : new Color(this.colors[i], true))
+          .build());
+      }
+      this.set = Collections.unmodifiableSet(infos);
+    }
+    return this.set;
+  }
+
+  /**
+   * Points this perception at the surroundings of a location, discarding what was perceived
+   * before. Nothing is looked at until a brain asks.
+   */
+  void reset(final Grid<Actor> grid, final Location loc, final double radius,
+    final int heading) {
+    this.size = 0;
+    this.set = null;
+    this.grid = grid;
+    this.row = loc.getRow();
+    this.col = loc.getCol();
+    this.radius = radius;
+    this.heading = heading;
+    this.offsets = PolarOffsets.forRadius(radius);
+    this.bearings = null;
+    this.cursor = 0;
+  }
+
+  /**
+   * Checks whether this perception was last reset for the given surroundings.
+   */
+  boolean isFor(final Grid<Actor> grid, final Location loc, final double radius,
+    final int heading) {
+    return this.offsets != null && this.grid == grid
+      && this.row == loc.getRow() && this.col == loc.getCol()
+      && this.radius == radius && this.heading == heading;
+  }
+
+  /**
+   * Looks at the next cells in order of distance until one holds an actor.
+   *
+   * @return <code>true</code> if an actor was added, <code>false</code> if everything in sight has
+   *         been looked at
+   */
+  private boolean advance() {
+    if (this.offsets == null) {
+      return false;
+    }
+    final int[] order = this.offsets.order();
+    while (this.cursor < order.length) {
+      final int offset = order[this.cursor++];
+      final double distance = this.offsets.distance(offset);
+      if (distance > this.radius) {
+        this.cursor = order.length;
+        break;
+      }
+      final int row = this.row + this.offsets.rowOffset(offset);
+      final int col = this.col + this.offsets.colOffset(offset);
+      if (!this.grid.isValid(row, col)) {
+        continue;
+      }
+      final Actor actor = this.grid.get(row, col);
+      if (actor != null) {
+        if (this.bearings == null) {
+          this.bearings = this.offsets.directions(this.heading);
+        }
+        this.append(Perception.typeIdOf(actor), distance,
+          this.bearings[offset], actor.getColor());
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void append(final int typeId, final double distance,
+    final double direction, final Color color) {
+    if (this.size == this.typeIds.length) {
+      final int capacity = 2 * this.size;
+      this.typeIds = Arrays.copyOf(this.typeIds, capacity);
+      this.distances = Arrays.copyOf(this.distances, capacity);
+      this.directions = Arrays.copyOf(this.directions, capacity);
+      this.colors = Arrays.copyOf(this.colors, capacity);
+    }
+    this.typeIds[this.size] = typeId;
+    this.distances[this.size] = distance;
+    this.directions[this.size] = direction;
+    this.colors[this.size] = color == null ? Perception.NO_COLOR : color.getRGB();
+    this.size++;
+  }
+
+  private void check(final int i) {
+    while (this.size <= i && this.advance()) {}
+    if (i < 0 || i >= this.size) {
+      throw new IndexOutOfBoundsException("Index " + i + ", size " + this.size);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package info.gridworld.actor;
+
+import java.util.Set;
+import java.util.stream.Stream;
+
+import info.gridworld.actor.ActorEvent.ActorInfo;
+
+/**
+ * A brain that reads its surroundings as a {@link Perception}, without the set of
+ * {@link ActorInfo} a plain {@link ActorListener} is handed. Shells call the
+ * <code>Perception</code> method of such a brain.
+ */
+@FunctionalInterface
+public interface PerceptionListener extends ActorListener {
+  /**
+   * Responds to an event given the shell's perception of its surroundings.
+   * 
+   * @param e the event
+   * @param self a description of the brain's own shell
+   * @param environment what the shell sees, valid until the shell's next sense phase
+   * @return the actions to take
+   */
+  Stream<Action> eventResponse(ActorEvent e, ActorInfo self,
+    Perception environment);
+
+  /**
+   * Responds to an event given a description of every actor the shell sees, by passing
+   * {@link Perception#of(Set)} on to {@link #eventResponse(ActorEvent, ActorInfo, Perception)}.
+   */
+  @Override
+  default Stream<Action> eventResponse(final ActorEvent e, final ActorInfo self,
+    final Set<ActorInfo> environment) {
+    return this.eventResponse(e, self, Perception.of(environment));
+  }
+}
@@ -0,0 +1,122 @@
+package info.gridworld.actor;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+import info.gridworld.grid.Location;
+
+/**
+ * A <code>PolarOffsets</code> table holds the distance and bearing of every cell offset within a
+ * square reach, so perception can look them up instead of running trigonometry for every
+ * neighbor. Bearings relative to a heading are derived once per heading and then shared. All
+ * values are bit-for-bit those of {@link Util#rectToPolar(double, double)}. <br />
+ * Tables are immutable once built and may be shared between threads.
+ */
+final class PolarOffsets {
+  private static final Map<Integer, PolarOffsets> TABLES =
+    new ConcurrentHashMap<>();
+
+  private final int reach;
+  private final int width;
+  private final double[] distances;
+  private final double[] bearings;
+  /**
+   * The offsets other than (0, 0), by increasing distance and in row-major order among equals.
+   */
+  private final int[] order;
+  private final AtomicReferenceArray<double[]> directions =
+    new AtomicReferenceArray<>(Location.FULL_CIRCLE);
+
+  private PolarOffsets(final int reach) {
+    this.reach = reach;
+    this.width = 2 * reach + 1;
+    this.distances = new double[this.width * this.width];
+    this.bearings = new double[this.width * this.width];
+    for (int dr = -reach; dr <= reach; dr++) {
+      for (int dc = -reach; dc <= reach; dc++) {
+        final int i = this.index(dr, dc);
+        // rectangular offset: x to the right, y up
+        final double x = dc;
+        final double y = -dr;
+        this.distances[i] = Math.hypot(x, y);
+        this.bearings[i] = Math.toDegrees(Util.polarUp(Math.atan2(y, x)));
+      }
+    }
+    this.order = IntStream.range(0, this.width * this.width).boxed()
+      .filter(i -> i != this.index(0, 0))
+      .sorted(Comparator.comparingInt(i -> {
+        final int dr = this.rowOffset(i);
+        final int dc = this.colOffset(i);
+        return dr * dr + dc * dc;
+      })).mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Gets the table covering every offset within a radius.
+   *
+   * @param radius the radius, in cells
+   * @return the shared table reaching at least <code>radius</code> cells
+   */
+  static PolarOffsets forRadius(final double radius) {
+    final int reach = (int) Math.ceil(radius);
+    return PolarOffsets.TABLES.computeIfAbsent(reach, PolarOffsets::new);
+  }
+
+  /**
+   * Gets the table index of an offset.
+   *
+   * @param dr the row offset, at most the reach of this table in magnitude
+   * @param dc the column offset, at most the reach of this table in magnitude
+   * @return the index of the offset
+   */
+  int index(final int dr, final int dc) {
+    return (dr + this.reach) * this.width + (dc + this.reach);
+  }
+
+  int rowOffset(final int index) {
+    return index / this.width - this.reach;
+  }
+
+  int colOffset(final int index) {
+    return index % this.width - this.reach;
+  }
+
+  /**
+   * Gets the indices of all offsets other than (0, 0), nearest first. Offsets at equal distances
+   * are in row-major order.
+   *
+   * @return the shared array of indices; must not be modified
+   */
+  int[] order() {
+    return this.order;
+  }
+
+  /**
+   * Gets the distance of an offset.
+   */
+  double distance(final int index) {
+    return this.distances[index];
+  }
+
+  /**
+   * Gets the bearings of all offsets as seen by an actor facing <code>heading</code>, in degrees in
+   * [-180, 180), indexed like {@link #index(int, int)}.
+   *
+   * @param heading a direction in [0, 360)
+   * @return the shared array of relative bearings; must not be modified
+   */
+  double[] directions(final int heading) {
+    double[] directions = this.directions.get(heading);
+    if (directions == null) {
+      directions = new double[this.bearings.length];
+      for (int i = 0; i < directions.length; i++) {
+        directions[i] = Util.normalizeDegrees(this.bearings[i] - heading);
+      }
+      this.directions.set(heading, directions);
+    }
+    return directions;
+  }
+}
@@ -5,6 +5,7 @@ import java.util.function.BiConsumer;
 
 import info.gridworld.actor.Shell.Tags;
 import info.gridworld.actor.ShellWorld.Watchman;
+import info.gridworld.grid.Location;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NonNull;
@@ -30,33 +31,45 @@ public class ReportEvents {
       this.direction = direction;
     }
 
+    /**
+     * Pushes a line of pushable shells. The chain starting at the actor collided with is walked
+     * along the direction of the collision up to the first empty cell; if every link is a pushable
+     * shell and the chain doesn't run into the edge of the grid, every link moves one cell on,
+     * starting at the far end, and the collider takes the place of the first link. Otherwise
+     * nothing moves.
+     */
     public static BiConsumer<Watchman, ReportEvent> impl() {
       return (final Watchman that, final ReportEvent r_) -> {
         val r = (CollisionReportEvent) r_;
-        val collidedWith_ = r.getCollidedWith();
-        if (!(collidedWith_ instanceof Shell)) {
-          return;
-        }
-        val collidedWith = (Shell) collidedWith_;
-        if (!(boolean) collidedWith.getTagOrDefault(Tags.PUSHABLE, false)) {
+        final Actor collider = r.getCollider();
+        final Actor collidedWith = r.getCollidedWith();
+        if (collidedWith == collider) {
           return;
         }
         final int direction = r.getDirection();
-        final Actor collider = r.getCollider();
         val grid = collider.getGrid();
         val destLoc = collidedWith.getLocation();
-        val pushLoc =
-          Util.sanitize(destLoc.getAdjacentLocation(direction), grid);
-        if (destLoc.equals(pushLoc)) {
-          return;
+        // find the empty cell the chain is pushed into
+        Location end = destLoc;
+        Actor link = collidedWith;
+        while (link != null) {
+          if (!(link instanceof Shell) || !((Shell) link).is(Tags.PUSHABLE)) {
+            return;
+          }
+          val next = end.getAdjacentLocation(direction);
+          if (!grid.isValid(next)) {
+            return;
+          }
+          end = next;
+          link = grid.get(end);
         }
-        val displaced = grid.get(pushLoc);
-        if (displaced != null) {
-          that.report(
-            new CollisionReportEvent(that, collidedWith, displaced, direction));
-          return;
+        // shift the chain, far end first, so every link moves into an empty cell
+        final int back = direction + Location.HALF_CIRCLE;
+        for (Location to = end; !to.equals(destLoc);) {
+          val from = to.getAdjacentLocation(back);
+          grid.get(from).moveTo(to);
+          to = from;
         }
-        collidedWith.moveTo(pushLoc);
         collider.moveTo(destLoc);
       };
     }
@@ -82,11 +95,11 @@ public class ReportEvents {
         val r = (MessageReportEvent) r_;
         val recipientId = r.getRecipientId();
         val message = r.getMessage();
-        val recipient = that.getWorld().getShells().get(recipientId);
-        if (recipient.getGrid() == null) {
+        val recipient = that.getWorld().getShell(recipientId);
+        if (recipient == null || recipient.getGrid() == null) {
           return;
         }
-        recipient.respond(
+        recipient.post(
           new ActorEvents.MessageEvent("I see what you did there", message));
       };
     }
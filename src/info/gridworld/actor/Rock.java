@@ -18,6 +18,19 @@ import java.awt.Color;
  */
 public class Rock extends Actor {
   private static final Color DEFAULT_COLOR = Color.BLACK;
+  /**
+   * Whether a class of rocks still does nothing, i.e. doesn't override <code>act</code>.
+   */
+  private static final ClassValue<Boolean> PASSIVE = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(final Class<?> type) {
+      try {
+        return type.getMethod("act").getDeclaringClass() == Rock.class;
+      } catch (final NoSuchMethodException e) {
+        throw new AssertionError(e);
+      }
+    }
+  };
 
   /**
    * Constructs a black rock.
@@ -40,4 +53,12 @@ public class Rock extends Actor {
    */
   @Override
   public void act() {}
+
+  /**
+   * A rock is passive unless its class overrides <code>act</code>.
+   */
+  @Override
+  public boolean isPassive() {
+    return Rock.PASSIVE.get(this.getClass());
+  }
 }
@@ -1,57 +1,99 @@
 package info.gridworld.actor;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
-import info.gridworld.actor.Actions.ColorAction;
-import info.gridworld.actor.Actions.MoveAction;
-import info.gridworld.actor.Actions.TurnAction;
 import info.gridworld.actor.ActorEvent.ActorInfo;
 import info.gridworld.actor.ShellWorld.Watchman;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
 
 public class Shell extends Actor {
+  private static final Object[] NO_TAG_VALUES = {};
+
   @Getter
   @RequiredArgsConstructor
   public enum Tags implements info.gridworld.actor.Tag {
-    PUSHABLE("Shell.Pushable");
-    private final String tag;
+    PUSHABLE(TagKey.of("Shell.Pushable", Boolean.class));
+    private final TagKey<?> key;
+
+    @Override
+    public String getTag() {
+      return this.key.getTag();
+    }
   }
 
   @Getter private final int id;
   @Getter private final @NonNull ActorListener brain;
   @Getter private final @NonNull Watchman watchman;
   private Stream<Action> nextActions;
-  private final @NonNull Map<Class<? extends Action>, BiConsumer<Shell, Action>> actionImpls =
-    new HashMap<>();
-  @Getter private final @NonNull Map<String, Object> tags = new HashMap<>();
+  private final ArrayDeque<ActorEvent> mailbox = new ArrayDeque<>();
+  private final Perception perception = new Perception();
+  /**
+   * The intents planned while acting simultaneously, waiting for the world to commit them.
+   */
+  @Getter(AccessLevel.PACKAGE) private final List<Intent> intents =
+    new ArrayList<>();
+  /**
+   * The reports made while acting, waiting for the watchman to handle them at the end of the act
+   * phase.
+   */
+  @Getter(AccessLevel.PACKAGE) private final List<ReportEvent> reports =
+    new ArrayList<>();
+  /**
+   * The implementations of the actions this shell can run, shared with every shell configured the
+   * same way.
+   */
+  @Getter private @NonNull ActionTable actionTable = ActionTable.DEFAULT;
+  private long flags = 0;
+  /**
+   * The flags that are set at all, to <code>true</code> or <code>false</code>.
+   */
+  private long flagsSet = 0;
+  private Object[] tagValues = Shell.NO_TAG_VALUES;
 
   public Shell(final int id, final @NonNull ActorListener brain,
     final @NonNull Watchman watchman) {
     this.id = id;
     this.brain = brain;
     this.watchman = watchman;
-    this.actionImpls.put(MoveAction.class, MoveAction.impl(1));
-    this.actionImpls.put(TurnAction.class, TurnAction.impl());
-    this.actionImpls.put(ColorAction.class, ColorAction.impl());
+  }
+
+  /**
+   * Sets the random number generator of this shell and seeds its brain with a stream split off
+   * from it.
+   */
+  @Override
+  public void setRandom(final SplittableRandom newRandom) {
+    super.setRandom(newRandom);
+    this.brain.seed(newRandom.split());
+  }
+
+  public Shell setActionTable(final @NonNull ActionTable actionTable) {
+    this.actionTable = actionTable;
+    return this;
   }
 
   public Shell addImpl(Class<? extends Action> clazz,
     BiConsumer<Shell, Action> impl) {
-    actionImpls.put(clazz, impl);
+    this.actionTable = this.actionTable.with(clazz, impl);
     return this;
   }
 
   public Shell addAllImpls(
     Map<Class<? extends Action>, BiConsumer<Shell, Action>> impls) {
-    actionImpls.putAll(impls);
+    this.actionTable = this.actionTable.withAll(impls);
     return this;
   }
 
@@ -60,21 +102,75 @@ public class Shell extends Actor {
     return this;
   }
 
+  /**
+   * Sets a tag by name. Like the map that used to hold tags, this accepts a value of any type,
+   * unless the tag is a flag, which only holds <code>Boolean</code>s.
+   *
+   * @throws IllegalArgumentException if the tag is a flag and <code>value</code> is not a
+   *           <code>Boolean</code>
+   */
   public Shell tag(String tag, Object value) {
-    this.tags.put(tag, value);
+    final TagKey<?> key = TagKey.forName(tag);
+    if (key.isFlag() && value != null && !(value instanceof Boolean)) {
+      throw new IllegalArgumentException(
+        "Tag " + tag + " only holds Booleans, not " + value);
+    }
+    this.store(key, value);
     return this;
   }
 
   public Shell tag(Tag tag) {
-    return this.tag(tag.getTag());
+    return this.tag(tag, null);
   }
 
   public Shell tag(Tag tag, Object value) {
-    return this.tag(tag.getTag(), value);
+    final TagKey<?> key = tag.getKey();
+    if (value != null) {
+      key.getType().cast(value);
+    }
+    this.store(key, value);
+    return this;
+  }
+
+  /**
+   * Sets the value of a typed tag.
+   * 
+   * @param key the tag
+   * @param value the new value, or <code>null</code> to clear the tag
+   * @return this shell
+   */
+  public <T> Shell set(final @NonNull TagKey<T> key, final T value) {
+    this.store(key, value);
+    return this;
+  }
+
+  /**
+   * Gets the value of a typed tag.
+   * 
+   * @param key the tag
+   * @return the value of the tag, or <code>null</code> if it is not set
+   */
+  public <T> T get(final @NonNull TagKey<T> key) {
+    return key.getType().cast(this.load(key));
+  }
+
+  /**
+   * Checks a boolean tag without boxing.
+   * 
+   * @param tag the tag
+   * @return <code>true</code> if the tag is set to <code>true</code>
+   */
+  public boolean is(final @NonNull Tag tag) {
+    final TagKey<?> key = tag.getKey();
+    if (key.isFlag()) {
+      return (this.flags & (1L << key.getBit())) != 0;
+    }
+    return Boolean.TRUE.equals(this.load(key));
   }
 
   public Object getTag(String tag) {
-    return this.tags.get(tag);
+    final TagKey<?> key = TagKey.lookup(tag);
+    return key == null ? null : this.load(key);
   }
 
   public Object getTagOrDefault(String tag, Object defaultValue) {
@@ -83,7 +179,7 @@ public class Shell extends Actor {
   }
 
   public Object getTag(Tag tag) {
-    return this.tags.get(tag.getTag());
+    return this.load(tag.getKey());
   }
 
   public Object getTagOrDefault(Tag tag, Object defaultValue) {
@@ -91,35 +187,174 @@ public class Shell extends Actor {
     return value == null ? defaultValue : value;
   }
 
+  /**
+   * Gets a snapshot of the tags that are set, by name.
+   * 
+   * @return a new map from tag name to value
+   */
+  public Map<String, Object> getTags() {
+    final Map<String, Object> tags = new HashMap<>();
+    for (long bits = this.flagsSet; bits != 0; bits &= bits - 1) {
+      final int bit = Long.numberOfTrailingZeros(bits);
+      tags.put(TagKey.flagName(bit), (this.flags & (1L << bit)) != 0);
+    }
+    for (int i = 0; i < this.tagValues.length; i++) {
+      if (this.tagValues[i] != null) {
+        tags.put(TagKey.slotName(i), this.tagValues[i]);
+      }
+    }
+    return tags;
+  }
+
+  /**
+   * Stores a tag value, in the flag words if the tag is a flag.
+   */
+  private void store(final TagKey<?> key, final Object value) {
+    if (key.isFlag()) {
+      final long bit = 1L << key.getBit();
+      if (value == null) {
+        this.flagsSet &= ~bit;
+      } else {
+        this.flagsSet |= bit;
+      }
+      if (Boolean.TRUE.equals(value)) {
+        this.flags |= bit;
+      } else {
+        this.flags &= ~bit;
+      }
+      return;
+    }
+    final int slot = key.getSlot();
+    if (slot >= this.tagValues.length) {
+      if (value == null) {
+        return;
+      }
+      this.tagValues = Arrays.copyOf(this.tagValues, slot + 1);
+    }
+    this.tagValues[slot] = value;
+  }
+
+  private Object load(final TagKey<?> key) {
+    if (key.isFlag()) {
+      final long bit = 1L << key.getBit();
+      return (this.flagsSet & bit) == 0 ? null : (this.flags & bit) != 0;
+    }
+    final int slot = key.getSlot();
+    return slot < this.tagValues.length ? this.tagValues[slot] : null;
+  }
+
   public void respond(final ActorEvent event) {
-    val that = ActorInfo.builder().id(this.id).distance(0.0).direction(0.0)
+    this.perceive();
+    this.nextActions = this.think(event, this.selfInfo(), this.perception);
+  }
+
+  /**
+   * Queues an event for delivery at the start of the next sense phase, unless the mailbox is full.
+   * 
+   * @param event the event to deliver
+   * @return <code>true</code> if the event was queued, <code>false</code> if it was dropped
+   */
+  public boolean post(final @NonNull ActorEvent event) {
+    if (this.mailbox.size() >= this.watchman.getWorld().getMailboxCapacity()) {
+      return false;
+    }
+    this.mailbox.add(event);
+    return true;
+  }
+
+  /**
+   * Gets the number of events waiting in this shell's mailbox.
+   * 
+   * @return the number of queued events
+   */
+  public int getMailboxSize() {
+    return this.mailbox.size();
+  }
+
+  /**
+   * Runs this shell's sense phase: prepares one perception of the surroundings, lets the brain
+   * respond to every queued event in arrival order and then to <code>event</code>, and keeps all
+   * resulting actions in that order.
+   * 
+   * @return <code>true</code> if the perception of the previous step was reused
+   */
+  boolean sense(final ActorEvent event) {
+    val that = this.selfInfo();
+    val reused = this.perceive();
+    val environment = this.perception;
+    if (this.mailbox.isEmpty()) {
+      this.nextActions = this.think(event, that, environment);
+      return reused;
+    }
+    final Stream.Builder<Stream<Action>> responses = Stream.builder();
+    for (ActorEvent mail; (mail = this.mailbox.poll()) != null;) {
+      responses.add(this.think(mail, that, environment));
+    }
+    responses.add(this.think(event, that, environment));
+    this.nextActions = responses.build().flatMap(Function.identity());
+    return reused;
+  }
+
+  /**
+   * Asks the brain to respond to an event, handing it the perception itself if it reads
+   * perceptions, or else the perception as a set.
+   */
+  private Stream<Action> think(final ActorEvent event, final ActorInfo that,
+    final Perception environment) {
+    return this.brain instanceof PerceptionListener
+      ? ((PerceptionListener) this.brain).eventResponse(event, that, environment)
+      : this.brain.eventResponse(event, that, environment.asSet());
+  }
+
+  private ActorInfo selfInfo() {
+    return ActorInfo.builder().id(this.id).distance(0.0).direction(0.0)
       .color(this.getColor()).build();
-    final Set<ActorInfo> environment = new HashSet<>();
-    val myDirection = this.getDirection();
-    val myLoc = this.getLocation();
-    val myLocRect = Util.locToRect(myLoc);
+  }
+
+  /**
+   * Points this shell's perception at its current surroundings, to be computed when its brain
+   * first looks. If the shell has neither moved nor turned and its registry recorded no change
+   * within sight, the previous perception is kept, including whatever part of it was computed.
+   * 
+   * @return <code>true</code> if the previous perception was kept
+   */
+  private boolean perceive() {
     final double sightRadius = 3;
-    Util.actorsInRadius(this, sightRadius).forEach(actor -> {
-      Class<?> actorType_;
-      if (actor instanceof Shell) {
-        actorType_ = ((Shell) actor).getBrain().getClass();
-      } else {
-        actorType_ = actor.getClass();
-      }
-      val actorType = actorType_;
-      val actorInfo = ActorInfo.builder().type(actorType.getName());
-      val actorLoc = actor.getLocation();
-      val actorLocRect = Util.locToRect(actorLoc);
-      val offset = Util.rectOffset(myLocRect, actorLocRect);
-      val offsetPolar = Util.rectToPolar(offset);
-      val offsetDirection =
-        Math.toDegrees(Util.polarUp(offsetPolar.getValue()));
-      actorInfo.distance(offsetPolar.getKey())
-        .direction(Util.normalizeDegrees(offsetDirection - myDirection));
-      actorInfo.color(actor.getColor());
-      environment.add(actorInfo.build());
-    });
-    this.nextActions = this.brain.eventResponse(event, that, environment);
+    val grid = this.getGrid();
+    val loc = this.getLocation();
+    val heading = this.getDirection();
+    if (this.perception.isFor(grid, loc, sightRadius, heading)
+      && this.registry != null
+      && !this.registry.isChangedNear(loc, (int) Math.ceil(sightRadius))) {
+      return true;
+    }
+    this.perception.reset(grid, loc, sightRadius, heading);
+    return false;
+  }
+
+  /**
+   * Carries out an intent of one of this shell's actions: right away, or, while a simultaneous world
+   * is acting, once every shell has planned its actions.
+   * 
+   * @param intent the intent to commit
+   */
+  public void intend(final @NonNull Intent intent) {
+    if (this.watchman.getWorld().isDeferringIntents()) {
+      this.intents.add(intent);
+    } else {
+      intent.commit();
+    }
+  }
+
+  /**
+   * Queues a report for this shell's watchman, which handles the reports of all shells at the end
+   * of the act phase, shell by shell in registration order. Only the thread acting for this shell
+   * may queue its reports, so reporting needs no locks, even while shells act in parallel.
+   * 
+   * @param report the report to queue
+   */
+  public void report(final @NonNull ReportEvent report) {
+    this.reports.add(report);
   }
 
   @Override
@@ -131,11 +366,7 @@ public class Shell extends Actor {
       if (a == null) {
         continue;
       }
-      Class<?> clazz = a.getClass();
-      BiConsumer<Shell, Action> impl = null;
-      while (clazz != null && (impl = this.actionImpls.get(clazz)) == null) {
-        clazz = clazz.getSuperclass();
-      }
+      final BiConsumer<Shell, Action> impl = this.actionTable.get(a.getClass());
       if (impl != null) {
         impl.accept(this, a);
       }
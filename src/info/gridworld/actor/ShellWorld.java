@@ -1,23 +1,46 @@
 package info.gridworld.actor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 
+import info.gridworld.grid.AbstractGrid;
 import info.gridworld.grid.Grid;
 import info.gridworld.grid.Location;
+import info.gridworld.grid.SpatialIndex;
+import info.gridworld.world.RandomService;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.val;
 
 @Getter
 public class ShellWorld extends ActorWorld {
+  /**
+   * A <code>Watchman</code> handles the reports of a world's shells. A report without a handler of
+   * its own is handled by the handler of its nearest superclass that has one; that lookup is
+   * resolved once per class and then cached in a <code>ClassValue</code>. <br />
+   * Reports handed to {@link #report(ReportEvent)} are handled right away. Reports queued with
+   * {@link Shell#report(ReportEvent)} are handled in a batch at the end of the act phase.
+   */
   public static class Watchman implements ReportListener {
+    private static final BiConsumer<Watchman, ReportEvent> NO_IMPL =
+      (watchman, report) -> {};
+
     @Getter private final @NonNull ShellWorld world;
     private final Map<Class<? extends ReportEvent>, BiConsumer<Watchman, ReportEvent>> reportImpls =
       new HashMap<>();
+    private ClassValue<BiConsumer<Watchman, ReportEvent>> resolved =
+      this.resolver();
 
     public Watchman(final @NonNull ShellWorld world) {
       this.world = world;
@@ -26,63 +49,396 @@ public class ShellWorld extends ActorWorld {
     public Watchman addImpl(Class<? extends ReportEvent> clazz,
       BiConsumer<Watchman, ReportEvent> impl) {
       reportImpls.put(clazz, impl);
+      this.resolved = this.resolver();
       return this;
     }
 
     public Watchman addAllImpls(
       Map<Class<? extends ReportEvent>, BiConsumer<Watchman, ReportEvent>> impls) {
       reportImpls.putAll(impls);
+      this.resolved = this.resolver();
       return this;
     }
 
     @Override
     public void report(final ReportEvent r) {
-      final Class<? extends ReportEvent> clazz = r.getClass();
-      final BiConsumer<Watchman, ReportEvent> impl =
-        this.reportImpls.get(clazz);
-      if (impl != null) {
-        impl.accept(this, r);
+      this.resolved.get(r.getClass()).accept(this, r);
+    }
+
+    /**
+     * Handles the reports queued by shells, shell by shell in the given order and each shell's in
+     * the order it made them. Reports queued by the handlers themselves are handled in the same
+     * batch. {@link ShellWorld#step()} does this for all shells at the end of the act phase.
+     * 
+     * @param shells the shells whose reports to handle
+     */
+    public void drain(final @NonNull Shell... shells) {
+      for (val shell : shells) {
+        val reports = shell.getReports();
+        if (reports.isEmpty()) {
+          continue;
+        }
+        for (int i = 0; i < reports.size(); i++) {
+          this.report(reports.get(i));
+        }
+        reports.clear();
       }
     }
+
+    private ClassValue<BiConsumer<Watchman, ReportEvent>> resolver() {
+      return new ClassValue<BiConsumer<Watchman, ReportEvent>>() {
+        @Override
+        protected BiConsumer<Watchman, ReportEvent> computeValue(
+          final Class<?> type) {
+          for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+            final BiConsumer<Watchman, ReportEvent> impl =
+              Watchman.this.reportImpls.get(clazz);
+            if (impl != null) {
+              return impl;
+            }
+          }
+          return Watchman.NO_IMPL;
+        }
+      };
+    }
   }
 
   private final @NonNull Watchman watchman = new Watchman(this);
-  private final @NonNull Map<Integer, Shell> shells = new HashMap<>();
 
-  @Override
-  public void add(Location loc, Actor occupant) {
-    if (occupant instanceof Shell) {
-      val shell = (Shell) occupant;
-      this.shells.put(shell.getId(), shell);
+  /**
+   * Gets a shell in this world's grid by id.
+   * 
+   * @param id the id of the shell
+   * @return the shell with that id, or <code>null</code> if it is not in the grid (any more)
+   */
+  public Shell getShell(final int id) {
+    return this.getRegistry().getShell(id);
+  }
+
+  /**
+   * Runs a phase of a step for a slice of the shells, splitting it in half until the slices are
+   * small enough to run directly. Yields the number of shells for which the phase returned
+   * <code>true</code>.
+   */
+  @RequiredArgsConstructor
+  private static class ShellTask extends RecursiveTask<Integer> {
+    private static final long serialVersionUID = 1L;
+    private static final int THRESHOLD = 64;
+    private final Shell[] shells;
+    private final int from;
+    private final int to;
+    private final Predicate<Shell> phase;
+
+    @Override
+    protected Integer compute() {
+      if (this.to - this.from <= ShellTask.THRESHOLD) {
+        int count = 0;
+        for (int i = this.from; i < this.to; i++) {
+          if (this.phase.test(this.shells[i])) {
+            count++;
+          }
+        }
+        return count;
+      }
+      final int mid = (this.from + this.to) >>> 1;
+      final ShellTask left =
+        new ShellTask(this.shells, this.from, mid, this.phase);
+      left.fork();
+      final int right =
+        new ShellTask(this.shells, mid, this.to, this.phase).compute();
+      return left.join() + right;
     }
-    super.add(loc, occupant);
   }
 
+  /**
+   * The intent granted a claimed cell so far, and the lottery ticket that won it.
+   */
+  @Value
+  private static class Claim {
+    private final Intent intent;
+    private final long ticket;
+  }
+
+  @Getter(AccessLevel.NONE) private ForkJoinPool sensePool = null;
+
+  /**
+   * Sets how many threads run the sense/think phase of a step. With more than one thread, every
+   * shell's perception and brain run in parallel on a <code>ForkJoinPool</code>, so brains must not
+   * share mutable state with each other. The act phase runs on the calling thread, unless the world
+   * acts simultaneously (see {@link #setSimultaneous(boolean)}): then shells plan their actions in
+   * parallel too, and only the commit runs on the calling thread.
+   * 
+   * @param parallelism the number of threads, or 1 to sense and think serially
+   * @return this world
+   */
+  public ShellWorld setParallelism(final int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism < 1");
+    }
+    if (this.sensePool != null) {
+      this.sensePool.shutdown();
+    }
+    this.sensePool = parallelism == 1 ? null : new ForkJoinPool(parallelism);
+    return this;
+  }
+
+  /**
+   * Gets how many threads run the sense/think phase of a step.
+   * 
+   * @return the number of threads, 1 if the phase runs serially
+   */
+  public int getParallelism() {
+    return this.sensePool == null ? 1 : this.sensePool.getParallelism();
+  }
+
+  /**
+   * The maximum number of events a shell's mailbox holds between two steps. Messages sent to a
+   * shell with a full mailbox are dropped.
+   */
+  private int mailboxCapacity = 16;
+
+  /**
+   * Sets the maximum number of events a shell's mailbox holds between two steps.
+   * 
+   * @param mailboxCapacity the capacity of every shell's mailbox
+   * @return this world
+   */
+  public ShellWorld setMailboxCapacity(final int mailboxCapacity) {
+    if (mailboxCapacity < 0) {
+      throw new IllegalArgumentException("mailboxCapacity < 0");
+    }
+    this.mailboxCapacity = mailboxCapacity;
+    return this;
+  }
+
+  /**
+   * Whether all shells plan their actions against the same grid before any of them is carried out.
+   */
+  private boolean simultaneous = false;
+  /**
+   * Whether shells are planning a simultaneous act phase right now, so their intents must wait.
+   */
+  @Getter(AccessLevel.PACKAGE) private boolean deferringIntents = false;
+
+  /**
+   * Sets whether shells act simultaneously. Normally shells act one at a time in registration
+   * order, each seeing the grid as the shells before it left it. Acting simultaneously, every shell
+   * first plans its actions against the grid as it was sensed, handing their effects to
+   * {@link Shell#intend(Intent)}. Of the intents claiming the same cell only the one with the
+   * highest priority is granted, ties being broken by a lottery drawn from the world's seed. The
+   * granted intents are then committed in one pass, phase by phase (see {@link Intent.Phase}),
+   * the shells taking their turns within a phase in the order of their lottery tickets, and their
+   * reports are handled in that order too. So the outcome depends neither on the order the shells
+   * were registered in nor on the number of threads. Other actors act after the commit. <br />
+   * Action implementations must not change the world except through intents while acting
+   * simultaneously.
+   * 
+   * @param simultaneous <code>true</code> to act simultaneously
+   * @return this world
+   */
+  public ShellWorld setSimultaneous(final boolean simultaneous) {
+    this.simultaneous = simultaneous;
+    return this;
+  }
+
+  /**
+   * The number of steps begun so far, so during a step the number of the current step, from 1.
+   */
+  private long steps = 0;
+
+  /**
+   * The number of perceptions prepared by the sense phases of all steps so far.
+   */
+  private long perceptions = 0;
+  /**
+   * The number of those perceptions that were kept from the previous step because nothing had
+   * changed within sight of their shells.
+   */
+  private long reusedPerceptions = 0;
+
+  /**
+   * Gets the fraction of perceptions kept from the previous step rather than computed again.
+   * 
+   * @return the reuse rate in [0, 1], or 0 before the first step
+   */
+  public double getPerceptionReuseRate() {
+    return this.perceptions == 0 ? 0
+      : (double) this.reusedPerceptions / this.perceptions;
+  }
+
+  /**
+   * Advances the world in two phases. In the sense/think phase every shell perceives its
+   * surroundings once, reusing its last perception if nothing changed within sight, and asks its
+   * brain for actions, first for the messages it was sent during the previous act phase and then
+   * for this step; this phase only reads the grid and may run in parallel (see
+   * {@link #setParallelism(int)}). In the act phase every actor but the passive ones then acts,
+   * one at a time, in registration order, or all shells act at once (see
+   * {@link #setSimultaneous(boolean)}), and the changes deferred to the registry are made (see
+   * {@link ActorRegistry#defer(Runnable)}). Finally the watchman handles the reports the shells
+   * queued while acting, such as the messages they sent, which then wait in the recipients'
+   * mailboxes until the next step.
+   */
   @Override
   public void step() {
+    this.steps++;
     val grid = this.getGrid();
-    final List<Actor> actors = new ArrayList<>();
-    for (val loc : grid.getOccupiedLocations()) {
-      val actor = grid.get(loc);
-      actors.add(actor);
+    val registry = this.getRegistry();
+    registry.refresh();
+    final int n = registry.getSize();
+    final List<Shell> shells = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      val actor = registry.get(i);
       if (actor instanceof Shell) {
-        ((Shell) actor)
-          .respond(new ActorEvents.StepEvent("I see what you did there"));
+        shells.add((Shell) actor);
+      }
+    }
+    final ActorEvent event =
+      new ActorEvents.StepEvent("I see what you did there");
+    final Shell[] sensing = shells.toArray(new Shell[shells.size()]);
+    int reused = 0;
+    if (this.sensePool == null) {
+      for (val shell : sensing) {
+        if (shell.sense(event)) {
+          reused++;
+        }
       }
+    } else {
+      reused = this.sensePool.invoke(new ShellTask(sensing, 0, sensing.length,
+        shell -> shell.sense(event)));
     }
-    for (val actor : actors) {
+    this.perceptions += sensing.length;
+    this.reusedPerceptions += reused;
+    // every shell has now seen the grid as it is, so start recording anew
+    registry.clearChanges();
+    if (this.simultaneous) {
+      this.actSimultaneously(sensing);
+    }
+    for (int i = 0; i < n; i++) {
+      val actor = registry.get(i);
       // only act if another actor hasn't removed actor
-      if (actor.getGrid() == grid) {
+      if (actor != null && actor.getGrid() == grid
+        && !(this.simultaneous && actor instanceof Shell)) {
         actor.act();
       }
     }
+    registry.runDeferred();
+    this.watchman.drain(sensing);
+  }
+
+  /**
+   * Lets every shell plan its actions against the current grid, then commits the granted intents.
+   * Leaves <code>shells</code> sorted by lottery ticket, the order the intents were committed in.
+   */
+  private void actSimultaneously(final Shell[] shells) {
+    val grid = this.getGrid();
+    this.deferringIntents = true;
+    try {
+      if (this.sensePool == null) {
+        for (val shell : shells) {
+          shell.act();
+        }
+      } else {
+        this.sensePool.invoke(new ShellTask(shells, 0, shells.length, shell -> {
+          shell.act();
+          return false;
+        }));
+      }
+    } finally {
+      this.deferringIntents = false;
+    }
+    final long salt = this.getRandom().getWorldRandom().nextLong();
+    // intents on different cells may still interact, e.g. pushes along overlapping chains, so
+    // they are committed in ticket order rather than in registration order
+    Arrays.sort(shells,
+      Comparator.comparingLong(shell -> RandomService.mix(salt ^ shell.getId())));
+    final Map<Location, Claim> claims = new HashMap<>();
+    for (val shell : shells) {
+      final long ticket = RandomService.mix(salt ^ shell.getId());
+      for (val intent : shell.getIntents()) {
+        val cell = intent.getClaim();
+        if (cell == null) {
+          continue;
+        }
+        val held = claims.get(cell);
+        if (held == null
+          || intent.getPriority() > held.getIntent().getPriority()
+          || (intent.getPriority() == held.getIntent().getPriority()
+            && ticket < held.getTicket())) {
+          claims.put(cell, new Claim(intent, ticket));
+        }
+      }
+    }
+    final boolean[] present = new boolean[shells.length];
+    for (val phase : Intent.Phase.values()) {
+      // shells removed in an earlier phase drop their remaining intents
+      for (int i = 0; i < shells.length; i++) {
+        present[i] = shells[i].getGrid() == grid;
+      }
+      for (int i = 0; i < shells.length; i++) {
+        if (!present[i]) {
+          continue;
+        }
+        for (val intent : shells[i].getIntents()) {
+          if (intent.getPhase() != phase) {
+            continue;
+          }
+          val cell = intent.getClaim();
+          if (cell == null || claims.get(cell).getIntent() == intent) {
+            intent.commit();
+          }
+        }
+      }
+    }
+    for (val shell : shells) {
+      shell.getIntents().clear();
+    }
+  }
+
+  /**
+   * Computes a digest of the world like {@link ActorWorld#digest()}, additionally mixing in the id
+   * of every shell.
+   */
+  @Override
+  public long digest() {
+    long digest = super.digest();
+    val grid = this.getGrid();
+    for (val loc : grid.getOccupiedLocations()) {
+      val actor = grid.get(loc);
+      if (actor instanceof Shell) {
+        digest +=
+          RandomService.mix(31L * loc.hashCode() + ((Shell) actor).getId());
+      }
+    }
+    return digest;
+  }
+
+  @Override
+  public void setGrid(final Grid<Actor> newGrid) {
+    ShellWorld.index(newGrid);
+    super.setGrid(newGrid);
+    this.getRegistry().setTrackingChanges(true);
+  }
+
+  /**
+   * Attaches a spatial index to a grid that supports one and doesn't have one yet, so that
+   * shouting only looks at nearby occupants.
+   */
+  private static void index(final Grid<Actor> grid) {
+    if (grid instanceof AbstractGrid && grid.getSpatialIndex() == null) {
+      ((AbstractGrid<Actor>) grid)
+        .setSpatialIndex(SpatialIndex.forGrid(grid));
+    }
   }
 
   public ShellWorld(Grid<Actor> grid) {
     super(grid);
+    ShellWorld.index(grid);
+    this.getRegistry().setTrackingChanges(true);
   }
 
   public ShellWorld() {
     super();
+    ShellWorld.index(this.getGrid());
+    this.getRegistry().setTrackingChanges(true);
   }
 }
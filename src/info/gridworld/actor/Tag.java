@@ -2,4 +2,13 @@ package info.gridworld.actor;
 
 public interface Tag {
   String getTag();
+
+  /**
+   * Gets the key that locates this tag's value in a shell.
+   *
+   * @return the key named {@link #getTag()}
+   */
+  default TagKey<?> getKey() {
+    return TagKey.forName(this.getTag());
+  }
 }
@@ -0,0 +1,148 @@
+package info.gridworld.actor;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * A <code>TagKey</code> is a typed shell tag with a slot preassigned at creation. Keys are interned
+ * by name, so every shell stores the value of a tag in the same slot: <code>Boolean</code> tags
+ * (up to 64 of them) are bits of a flag word, all other tags are elements of a small array. <br />
+ * A tag used by name before its typed key exists gets an untyped placeholder key in the value
+ * array. Creating the typed key later takes the placeholder over: the typed key keeps the
+ * placeholder's slot, so values stored by name stay visible, and the name resolves to the typed
+ * key from then on.
+ */
+public final class TagKey<T> implements Tag {
+  private static final int FLAG_BITS = Long.SIZE;
+  private static final Map<String, TagKey<?>> KEYS = new ConcurrentHashMap<>();
+  private static final String[] FLAG_NAMES = new String[TagKey.FLAG_BITS];
+  private static String[] slotNames = new String[16];
+  private static int flagCount = 0;
+  private static int slotCount = 0;
+
+  @Getter private final String tag;
+  @Getter private final Class<T> type;
+  /**
+   * The bit of this tag in the flag word, or -1 if the tag is stored in the value array.
+   */
+  @Getter private final int bit;
+  /**
+   * The index of this tag in the value array, or -1 if the tag is a flag.
+   */
+  @Getter private final int slot;
+  /**
+   * Whether this key was created by name only, so a typed key may still take it over.
+   */
+  private final boolean placeholder;
+
+  private TagKey(final String tag, final Class<T> type, final int bit,
+    final int slot, final boolean placeholder) {
+    this.tag = tag;
+    this.type = type;
+    this.bit = bit;
+    this.slot = slot;
+    this.placeholder = placeholder;
+  }
+
+  /**
+   * Gets the key of a tag, creating it if necessary. If the tag has only been used by name so far,
+   * the new key takes over the slot of its placeholder.
+   *
+   * @param tag the name of the tag
+   * @param type the type of the tag's values
+   * @return the key named <code>tag</code>
+   * @throws IllegalArgumentException if the key already exists with another type
+   */
+  @SuppressWarnings("unchecked")
+  public static synchronized <T> TagKey<T> of(final @NonNull String tag,
+    final @NonNull Class<T> type) {
+    final TagKey<?> key = TagKey.KEYS.get(tag);
+    if (key != null && key.placeholder) {
+      final TagKey<T> typedKey = new TagKey<>(tag, type, -1, key.slot, false);
+      TagKey.KEYS.put(tag, typedKey);
+      return typedKey;
+    }
+    if (key != null) {
+      if (key.type != type) {
+        throw new IllegalArgumentException("Tag " + tag + " already has type "
+          + key.type.getName() + ", not " + type.getName());
+      }
+      return (TagKey<T>) key;
+    }
+    final TagKey<T> newKey;
+    if (type == Boolean.class && TagKey.flagCount < TagKey.FLAG_BITS) {
+      TagKey.FLAG_NAMES[TagKey.flagCount] = tag;
+      newKey = new TagKey<>(tag, type, TagKey.flagCount++, -1, false);
+    } else {
+      newKey = new TagKey<>(tag, type, -1, TagKey.newSlot(tag), false);
+    }
+    TagKey.KEYS.put(tag, newKey);
+    return newKey;
+  }
+
+  /**
+   * Gets the key of a tag by name, creating an untyped placeholder key if none exists yet.
+   *
+   * @param tag the name of the tag
+   * @return the key named <code>tag</code>
+   */
+  public static TagKey<?> forName(final @NonNull String tag) {
+    final TagKey<?> key = TagKey.KEYS.get(tag);
+    return key != null ? key : TagKey.placeholder(tag);
+  }
+
+  private static synchronized TagKey<?> placeholder(final String tag) {
+    final TagKey<?> key = TagKey.KEYS.get(tag);
+    if (key != null) {
+      return key;
+    }
+    final TagKey<Object> newKey =
+      new TagKey<>(tag, Object.class, -1, TagKey.newSlot(tag), true);
+    TagKey.KEYS.put(tag, newKey);
+    return newKey;
+  }
+
+  private static int newSlot(final String tag) {
+    if (TagKey.slotCount == TagKey.slotNames.length) {
+      TagKey.slotNames = Arrays.copyOf(TagKey.slotNames, 2 * TagKey.slotCount);
+    }
+    TagKey.slotNames[TagKey.slotCount] = tag;
+    return TagKey.slotCount++;
+  }
+
+  /**
+   * Gets the key of a tag by name without creating one.
+   *
+   * @param tag the name of the tag
+   * @return the key named <code>tag</code>, or <code>null</code> if none exists
+   */
+  public static TagKey<?> lookup(final @NonNull String tag) {
+    return TagKey.KEYS.get(tag);
+  }
+
+  static synchronized String flagName(final int bit) {
+    return TagKey.FLAG_NAMES[bit];
+  }
+
+  static synchronized String slotName(final int slot) {
+    return TagKey.slotNames[slot];
+  }
+
+  public boolean isFlag() {
+    return this.bit >= 0;
+  }
+
+  @Override
+  public TagKey<T> getKey() {
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return this.tag;
+  }
+}
@@ -97,28 +97,51 @@ public class Util {
     }
   }
 
-  public Stream<Actor> actorsInRadius(final Shell that, final double radius) {
+  /**
+   * Finds the actors within a circular radius of another actor, not including that actor. Uses the
+   * grid's spatial index when it has one, so the cost follows the local density rather than the
+   * area of the circle.
+   * 
+   * @param that the actor at the center
+   * @param radius the maximum distance, in cells
+   * @return the actors in range, in no particular order
+   */
+  public Stream<Actor> actorsInRadius(final Actor that, final double radius) {
     val stream = Stream.<Actor>builder();
     val grid = that.getGrid();
-    val numRows = grid.getNumRows();
-    val numCols = grid.getNumCols();
     val myLoc = that.getLocation();
     val myRow = myLoc.getRow();
     val myCol = myLoc.getCol();
-    val startRow = (int) Math.max(myRow - radius, 0);
-    val endRow = (int) Math.min(myRow + radius,
-      (numRows == -1) ? Integer.MAX_VALUE : numRows);
-    // wheeee, square radii
-    for (int row = startRow; row < endRow; row++) {
-      val startCol = (int) Math.max(myCol - radius, 0);
-      val endCol = (int) Math.min(myCol + radius,
-        (numCols == -1) ? Integer.MAX_VALUE : numCols);
-      for (int col = Math.max(startCol, 0); col < endCol; col++) {
-        if (row == myRow && col == myCol) {
+    val index = grid.getSpatialIndex();
+    if (index != null) {
+      index.forEachInRadius(myRow, myCol, radius, (row, col) -> {
+        if (row != myRow || col != myCol) {
+          stream.add(grid.get(row, col));
+        }
+      });
+      return stream.build();
+    }
+    // no index, so probe the bounding box of the circle, clipped to the grid
+    val numRows = grid.getNumRows();
+    val numCols = grid.getNumCols();
+    val reach = (long) Math.min(Math.ceil(radius), Integer.MAX_VALUE);
+    val r2 = radius * radius;
+    val startRow = (int) Math.max(myRow - reach,
+      (numRows == -1) ? Integer.MIN_VALUE : 0);
+    val endRow = (int) Math.min(myRow + reach,
+      (numRows == -1) ? Integer.MAX_VALUE : numRows - 1);
+    val startCol = (int) Math.max(myCol - reach,
+      (numCols == -1) ? Integer.MIN_VALUE : 0);
+    val endCol = (int) Math.min(myCol + reach,
+      (numCols == -1) ? Integer.MAX_VALUE : numCols - 1);
+    for (long row = startRow; row <= endRow; row++) {
+      for (long col = startCol; col <= endCol; col++) {
+        final long dr = row - myRow;
+        final long dc = col - myCol;
+        if ((dr == 0 && dc == 0) || dr * dr + dc * dc > r2) {
           continue;
         }
-        val loc = new Location(row, col);
-        val actor = grid.get(loc);
+        val actor = grid.get((int) row, (int) col);
         if (actor == null) {
           continue;
         }
@@ -287,7 +310,9 @@ public class Util {
   }
 
   public Location sanitize(Location loc, Grid<?> grid) {
-    return sanitize(loc, grid.getNumRows(), grid.getNumCols());
+    final Location clamped =
+      Util.sanitize(loc, grid.getNumRows(), grid.getNumCols());
+    return grid.getLocation(clamped.getRow(), clamped.getCol());
   }
 
   public Pair<Integer, Integer> locToRectInt(Location loc) {
@@ -321,8 +346,9 @@ public class Util {
   public Stream<Shell> genShells(ShellWorld world, AtomicReference<Integer> id,
     Stream<? extends ActorListener> brains,
     Map<Class<? extends Action>, BiConsumer<Shell, Action>> baseImpls) {
+    final ActionTable actionTable = ActionTable.DEFAULT.withAll(baseImpls);
     return brains
-      .map(brain -> genShell(world, id, brain).addAllImpls(baseImpls));
+      .map(brain -> genShell(world, id, brain).setActionTable(actionTable));
   }
 
   public Stream.Builder<Actor> addShells(Stream.Builder<Actor> actors,
@@ -336,8 +362,9 @@ public class Util {
     ShellWorld world, AtomicReference<Integer> id,
     Stream<? extends ActorListener> brains,
     Map<Class<? extends Action>, BiConsumer<Shell, Action>> baseImpls) {
-    brains.forEach(
-      brain -> actors.add(genShell(world, id, brain).addAllImpls(baseImpls)));
+    final ActionTable actionTable = ActionTable.DEFAULT.withAll(baseImpls);
+    brains.forEach(brain -> actors
+      .add(genShell(world, id, brain).setActionTable(actionTable)));
     return actors;
   }
 
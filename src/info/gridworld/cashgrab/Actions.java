@@ -4,11 +4,16 @@ import java.util.function.BiConsumer;
 
 import info.gridworld.actor.Action;
 import info.gridworld.actor.Actor;
+import info.gridworld.actor.Intent;
+import info.gridworld.actor.Intents;
 import info.gridworld.actor.Shell;
 import info.gridworld.actor.Util;
 import info.gridworld.actor.Util.Pairs;
 import info.gridworld.cashgrab.CashGrab.Bank;
 import info.gridworld.grid.Location;
+import info.gridworld.world.Log;
+import info.gridworld.world.Log.Level;
+import info.gridworld.world.Log.Logger;
 import javafx.util.Pair;
 import lombok.Data;
 import lombok.val;
@@ -18,6 +23,8 @@ import lombok.experimental.UtilityClass;
 public class Actions {
   @Data
   public class CollectCoinAction implements Action {
+    private static final Logger LOG = Log.getLogger("cashgrab.collect");
+
     private final double distance;
     private final double direction;
 
@@ -33,32 +40,35 @@ public class Actions {
           (Pair<Bank, Integer>) that.getTag(CashGrab.Tags.BANK);
         if (bank_ == null || bank_.getKey() == null
           || bank_.getValue() == null) {
-          System.out.println("null bank of " + that.getId());
+          CollectCoinAction.LOG.warn("null bank of {}", that.getId());
           return;
         }
         val cca = (CollectCoinAction) a;
         final double distance = Math.min(cca.getDistance(), maxDist);
         final double direction = cca.getDirection();
-        System.out.println(that.getId() + " at " + that.getLocation()
-          + " attempting collection of distance " + distance + " direction "
-          + that.getDirection() + " target direction " + direction);
+        if (CollectCoinAction.LOG.isEnabled(Level.DEBUG)) {
+          CollectCoinAction.LOG.debug(() -> that.getId() + " at "
+            + that.getLocation() + " attempting collection of distance "
+            + distance + " direction " + that.getDirection()
+            + " target direction " + direction);
+        }
         val loc = Util.locToRect(that.getLocation());
         val grid = that.getGrid();
         val offset = Util.polarToRect(distance,
           Util.polarRight(Math.toRadians(that.getDirection() + direction)));
         val targetLoc =
           Util.rectToLoc(Pairs.thread(loc, offset, (x, y) -> x + y));
-        System.out.println("targeting " + targetLoc + " offset " + offset);
+        CollectCoinAction.LOG.debug("targeting {} offset {}", targetLoc, offset);
         final Actor target_ = grid.get(Util.sanitize(targetLoc, grid));
         if (target_ == null) {
-          System.out.println("null target");
+          CollectCoinAction.LOG.debug("null target");
           return;
         }
         Pair<Bank, Integer> targetBank_ = null;
         if (target_ instanceof Shell) {
           val target = (Shell) target_;
-          if (!(boolean) target.getTagOrDefault(CashGrab.Tags.MINABLE, false)) {
-            System.out.println("non-minable target");
+          if (!target.is(CashGrab.Tags.MINABLE)) {
+            CollectCoinAction.LOG.debug("non-minable target");
             return;
           }
           @SuppressWarnings({"unchecked"}) val targetBank__ =
@@ -69,28 +79,36 @@ public class Actions {
           val target = (Coin) target_;
           targetBank_ = Pairs.liftNull(target.getBank(), target.getId());
         } else {
-          System.out.println("unknown target");
+          CollectCoinAction.LOG.debug("unknown target");
           return;
         }
         if (targetBank_ == null) {
-          System.out.println("null target bank");
+          CollectCoinAction.LOG.debug("null target bank");
           return;
         }
         final Bank bank = bank_.getKey();
         final int id = bank_.getValue();
         final Bank targetBank = targetBank_.getKey();
         final int targetId = targetBank_.getValue();
-        System.out.println("transfer attempt " + id + " to " + targetId);
-        if (targetBank.getBalance(targetId) > 0) {
-          bank.transfer(targetBank, targetId, id, maxMine);
-          System.out
-            .println("transfer " + id + " to " + targetId + " complete");
+        if (CollectCoinAction.LOG.isEnabled(Level.DEBUG)) {
+          CollectCoinAction.LOG.debug("transfer attempt {} to {}", id, targetId);
         }
+        that.intend(new Intents.Effect(Intent.Phase.TRANSFER,
+          target_.getLocation(), () -> {
+            final long mined = targetBank.getLedger().transfer(targetId,
+              bank.getLedger(), id, maxMine);
+            if (mined > 0 && CollectCoinAction.LOG.isEnabled(Level.DEBUG)) {
+              CollectCoinAction.LOG.debug("transfer {} to {} complete", id,
+                targetId);
+            }
+          }));
       };
     }
   }
   @Data
   public class ConsumeAction implements Action {
+    private static final Logger LOG = Log.getLogger("cashgrab.consume");
+
     private final double distance;
     private final double direction;
 
@@ -101,8 +119,8 @@ public class Actions {
 
     public static BiConsumer<Shell, Action> impl(final int maxDist) {
       return (final Shell that, final Action a) -> {
-        if (!((boolean) that.getTagOrDefault(CashGrab.Tags.PREDATOR, false))) {
-          System.out.println("not a pred");
+        if (!that.is(CashGrab.Tags.PREDATOR)) {
+          ConsumeAction.LOG.debug("not a pred");
           return;
         }
         val loc = that.getLocation();
@@ -114,15 +132,15 @@ public class Actions {
           (int) (loc.getCol() + offsets.getValue()));
         val prey = grid.get(Util.sanitize(preyLoc, grid));
         if (prey == null) {
-          System.out.println("nothing to eat");
+          ConsumeAction.LOG.debug("nothing to eat");
           return;
         }
         if (prey == that) {
-          System.out.println("can't eat self");
+          ConsumeAction.LOG.debug("can't eat self");
           return;
         }
-        System.out.println("om nom nom");
-        prey.removeSelfFromGrid();
+        ConsumeAction.LOG.debug("om nom nom");
+        that.intend(new Intents.Remove(prey, prey.getLocation()));
       };
     }
   }
@@ -2,7 +2,7 @@ package info.gridworld.cashgrab;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -12,36 +12,50 @@ import info.gridworld.actor.Actions.TurnAction;
 import info.gridworld.actor.ActorEvent;
 import info.gridworld.actor.ActorEvent.ActorInfo;
 import info.gridworld.actor.ActorEvents.StepEvent;
-import info.gridworld.actor.ActorListener;
+import info.gridworld.actor.Perception;
+import info.gridworld.actor.PerceptionListener;
 import info.gridworld.cashgrab.Actions.CollectCoinAction;
+import info.gridworld.world.Log;
+import info.gridworld.world.Log.Level;
+import info.gridworld.world.Log.Logger;
+import info.gridworld.world.RandomService;
 import lombok.Getter;
 import lombok.ToString;
 
-@ToString
-public class CalebBug implements ActorListener {
-  @Getter private UUID uuid = UUID.randomUUID();
+@ToString(exclude = "random")
+public class CalebBug implements PerceptionListener {
+  private static final int COIN_TYPE = Perception.typeId(Coin.class.getName());
+  private static final Logger LOG = Log.getLogger("cashgrab.calebbug");
+
+  private SplittableRandom random = new SplittableRandom();
+  @Getter private UUID uuid = RandomService.nextUUID(this.random);
+
+  @Override
+  public void seed(final SplittableRandom random) {
+    this.random = random;
+    this.uuid = RandomService.nextUUID(random);
+  }
 
   @Override
   public Stream<Action> eventResponse(final ActorEvent e, final ActorInfo self,
-    final Set<ActorInfo> environment) {
+    final Perception environment) {
     final List<Action> actions = new ArrayList<>();
     stepEvent: if (e instanceof StepEvent) {
-      final ActorInfo coin = environment.stream()
-        .filter(a -> a.getType().equals(Coin.class.getName())).findFirst()
-        .orElse(null);
-      if (coin != null) {
-        final Double distance = coin.getDistance();
-        final Double direction = coin.getDirection();
-        System.out
-          .print(uuid + " coin detected " + distance + ", " + direction);
-        if (direction != null && distance != null && distance <= 2) {
-          System.out.println(", collecting");
+      final int coin = environment.nearest(CalebBug.COIN_TYPE);
+      if (coin >= 0) {
+        final double distance = environment.getDistance(coin);
+        final double direction = environment.getDirection(coin);
+        final boolean collecting = distance <= 2;
+        if (CalebBug.LOG.isEnabled(Level.DEBUG)) {
+          CalebBug.LOG.debug(() -> uuid + " coin detected " + distance + ", "
+            + direction + (collecting ? ", collecting" : ""));
+        }
+        if (collecting) {
           actions.add(new CollectCoinAction(distance, direction));
           break stepEvent;
         }
-        System.out.println();
       }
-      if (Math.random() < 0.5) {
+      if (random.nextBoolean()) {
         actions.add(new TurnAction(-1));
       } else {
         actions.add(new TurnAction(1));
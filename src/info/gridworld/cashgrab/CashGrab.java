@@ -1,15 +1,18 @@
 package info.gridworld.cashgrab;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
 import info.gridworld.actor.Shell;
-import lombok.Data;
+import info.gridworld.actor.TagKey;
+import javafx.util.Pair;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import lombok.val;
 import lombok.experimental.UtilityClass;
 
 @UtilityClass
@@ -17,40 +20,88 @@ public class CashGrab {
   @Getter
   @RequiredArgsConstructor
   public enum Tags implements info.gridworld.actor.Tag {
-    BANK("CashGrab.Bank"), MINABLE("CashGrab.Minable"), IS_FEMALE(
-      "CashGrab.IsFemale"), PREDATOR("CashGrab.Predator");
-    private final String tag;
+    BANK(TagKey.of("CashGrab.Bank", Pair.class)),
+    MINABLE(TagKey.of("CashGrab.Minable", Boolean.class)),
+    IS_FEMALE(TagKey.of("CashGrab.IsFemale", Boolean.class)),
+    PREDATOR(TagKey.of("CashGrab.Predator", Boolean.class));
+    private final TagKey<?> key;
+
+    @Override
+    public String getTag() {
+      return this.key.getTag();
+    }
   }
-  @Data
+  /**
+   * A <code>Bank</code> holds the money of coins and CalebBugs in a {@link Ledger}, whose accounts
+   * can't be overdrawn, and tells the subscribers of an account when it runs out of money.
+   */
+  @Getter
   public class Bank {
-    private final Map<Integer, Integer> balances = new HashMap<>();
+    private final Ledger ledger = new Ledger();
+    @Getter(AccessLevel.NONE)
+    private final Map<Integer, List<Runnable>> subscribers =
+      new ConcurrentHashMap<>();
+
+    public Bank() {
+      ledger.setEmptiedListener(this::emptied);
+    }
 
     public int getBalance(int id) {
-      return balances.getOrDefault(id, 0);
+      return (int) ledger.getBalance(id);
     }
 
     public Bank setBalance(int id, int balance) {
-      balances.put(id, balance);
+      ledger.setBalance(id, balance);
       return this;
     }
 
-    public Bank bank(Shell shell) {
-      shell.tag(CashGrab.Tags.BANK, this);
+    /**
+     * Tags a shell with an account of this bank, as the pair of this bank and the account id that
+     * {@link Actions.CollectCoinAction} reads back.
+     */
+    public Bank bank(Shell shell, int account) {
+      shell.tag(CashGrab.Tags.BANK, new Pair<>(this, account));
       return this;
     }
 
+    /**
+     * Moves up to <code>amount</code> from an account of this bank to an account of another bank,
+     * as much as the source account holds.
+     */
     public Bank transfer(Bank destBank, int src, int dest, int amount) {
-      val srcBalance = this.getBalance(src);
-      val destBalance = destBank.getBalance(dest);
-      this.setBalance(src, srcBalance - amount);
-      destBank.setBalance(dest, destBalance + amount);
-      System.out.println("transfer " + amount + " from " + src + " to " + dest);
+      ledger.transfer(src, destBank.getLedger(), dest, amount);
       return this;
     }
 
     public Bank transfer(int src, int dest, int amount) {
       return this.transfer(this, src, dest, amount);
     }
+
+    /**
+     * Subscribes to an account running out of money. The subscriber is called on the thread that
+     * took the last of the money, right after the transfer, so one that changes the grid must defer
+     * the change (see {@link info.gridworld.actor.ActorRegistry#defer(Runnable)}).
+     */
+    public Bank subscribe(int id, Runnable onEmptied) {
+      subscribers.computeIfAbsent(id, k -> new CopyOnWriteArrayList<>())
+        .add(onEmptied);
+      return this;
+    }
+
+    public Bank unsubscribe(int id, Runnable onEmptied) {
+      subscribers.computeIfPresent(id, (k, list) -> {
+        list.remove(onEmptied);
+        return list.isEmpty() ? null : list;
+      });
+      return this;
+    }
+
+    private void emptied(int id) {
+      final List<Runnable> list = subscribers.get(id);
+      if (list != null) {
+        list.forEach(Runnable::run);
+      }
+    }
   }
 
   public Coin genCoin(AtomicReference<Integer> id, Bank bank) {
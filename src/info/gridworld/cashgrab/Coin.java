@@ -1,26 +1,66 @@
 package info.gridworld.cashgrab;
 
+import info.gridworld.actor.Actor;
+import info.gridworld.actor.ActorRegistry;
 import info.gridworld.actor.Rock;
 import info.gridworld.cashgrab.CashGrab.Bank;
+import info.gridworld.grid.Grid;
+import info.gridworld.grid.Location;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
+/**
+ * A <code>Coin</code> holds money in an account of a bank, and removes itself from its grid once
+ * the bank tells it the account is empty. The bank may tell it from any thread, so the coin defers
+ * its removal to the end of the world's act phase (see {@link ActorRegistry#defer(Runnable)}),
+ * and stays if the account has been refilled by then. It never acts, so worlds don't step it.
+ */
 @Getter
 @RequiredArgsConstructor
 public class Coin extends Rock {
   private final int id;
   private final @NonNull Bank bank;
+  @Getter(AccessLevel.NONE)
+  private final Runnable onEmptied = this::emptied;
 
   public Coin(final int id, final Bank bank, final int initBalance) {
     this(id, bank);
     this.bank.setBalance(id, initBalance);
   }
 
+  /**
+   * Puts this coin into a grid and subscribes to its account running out of money.
+   */
   @Override
-  public void act() {
-    super.act();
-    if (bank.getBalance(id) == 0) {
+  public void putSelfInGrid(final Grid<Actor> gr, final Location loc) {
+    super.putSelfInGrid(gr, loc);
+    this.bank.subscribe(this.id, this.onEmptied);
+  }
+
+  @Override
+  public void removeSelfFromGrid() {
+    this.bank.unsubscribe(this.id, this.onEmptied);
+    super.removeSelfFromGrid();
+  }
+
+  private void emptied() {
+    final Grid<Actor> gr = this.getGrid();
+    if (gr == null) {
+      return;
+    }
+    final ActorRegistry registry = ActorRegistry.of(gr);
+    if (registry != null) {
+      registry.defer(this::removeIfEmpty);
+    } else {
+      // the grid holds no registry, so there is no act phase the coin can wait for
+      this.removeIfEmpty();
+    }
+  }
+
+  private void removeIfEmpty() {
+    if (this.getGrid() != null && this.bank.getBalance(this.id) <= 0) {
       this.removeSelfFromGrid();
     }
   }
@@ -1,10 +1,8 @@
 package info.gridworld.cashgrab;
 
 import java.awt.Color;
-import java.io.Serializable;
-import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.UUID;
-import java.util.function.Function;
 import java.util.stream.Stream;
 
 import info.gridworld.actor.Action;
@@ -14,24 +12,25 @@ import info.gridworld.actor.ActorEvent;
 import info.gridworld.actor.ActorEvent.ActorInfo;
 import info.gridworld.actor.ActorEvents.MessageEvent;
 import info.gridworld.actor.ActorEvents.StepEvent;
-import info.gridworld.actor.ActorListener;
-import info.gridworld.actor.Util;
+import info.gridworld.actor.ImmutableMessage;
+import info.gridworld.actor.Perception;
+import info.gridworld.actor.PerceptionListener;
 import info.gridworld.actor.Util.Either;
-import info.gridworld.actor.Util.Pairs;
 import info.gridworld.cashgrab.Actions.ConsumeAction;
+import info.gridworld.world.RandomService;
 import javafx.util.Pair;
 import lombok.RequiredArgsConstructor;
 import lombok.Value;
 import lombok.val;
 
 @RequiredArgsConstructor
-public class HunterCritter implements ActorListener {
+public class HunterCritter implements PerceptionListener {
   private static final int BABY_TIME = 30;
 
   @Value
-  public static class MatingCall implements Serializable {
+  public static class MatingCall implements ImmutableMessage {
     @Value
-    public static class Info implements Serializable {
+    public static class Info implements ImmutableMessage {
       private static final long serialVersionUID = 1L;
       UUID uuid;
       Integer id;
@@ -51,11 +50,17 @@ public class HunterCritter implements ActorListener {
   private int time = 0;
   private int lastBaby = 0;
   private MatingCall.Info mate = null;
-  private final UUID uuid = UUID.randomUUID();
+  private UUID uuid = RandomService.nextUUID(new SplittableRandom());
+  private final int typeId = Perception.typeId(this.getClass().getName());
+
+  @Override
+  public void seed(final SplittableRandom random) {
+    this.uuid = RandomService.nextUUID(random);
+  }
 
   @Override
   public Stream<Action> eventResponse(final ActorEvent e, final ActorInfo self,
-    final Set<ActorInfo> environment) {
+    final Perception environment) {
     val actions = Stream.<Action>builder();
     if (e instanceof MessageEvent) {
       val message_ = ((MessageEvent) e).getMessage();
@@ -103,34 +108,24 @@ public class HunterCritter implements ActorListener {
     return actions.build();
   }
 
-  private Pair<Action, ActorInfo> court(Set<ActorInfo> environment) {
-    val name = this.getClass().getName();
-    val lover = environment.stream()
-      .filter(a -> Util.coalesce(a.getType(), "").equals(name)).findAny()
-      .orElse(null);
-    if (lover == null) {
+  private Pair<Action, Integer> court(final Perception environment) {
+    final int lover = environment.nearest(this.typeId);
+    if (lover < 0) {
       return null;
     }
-    val loverLocation =
-      Pairs.liftNull(lover.getDistance(), lover.getDirection());
-    final Function<Pair<Double, Double>, MessageAction> messageFun =
-      p -> new MessageAction(Either.right(Either.right(p)), "hey baby");
-    return Pairs.liftNull(Util.applyNullable(loverLocation, messageFun), lover);
+    final Pair<Double, Double> loverLocation = new Pair<>(
+      environment.getDistance(lover), environment.getDirection(lover));
+    return new Pair<>(
+      new MessageAction(Either.right(Either.right(loverLocation)), "hey baby"),
+      lover);
   }
 
-  private Action eatPrey(Set<ActorInfo> environment) {
-    val name = this.getClass().getName();
-    val prey = environment.stream()
-      .filter(a -> !Util.coalesce(a.getType(), "").equals(name))
-      .sorted((a1, a2) -> Double.compare(
-        Util.coalesce(a1.getDistance(), Double.MAX_VALUE),
-        Util.coalesce(a2.getDistance(), Double.MAX_VALUE)))
-      .findFirst().orElse(null);
-    if (prey == null) {
+  private Action eatPrey(final Perception environment) {
+    final int prey = environment.nearestExcept(this.typeId);
+    if (prey < 0) {
       return null;
     }
-    return Pairs.applyNullable(
-      Pairs.liftNull(prey.getDistance(), prey.getDirection()),
-      ConsumeAction::new);
+    return new ConsumeAction(environment.getDistance(prey),
+      environment.getDirection(prey));
   }
 }
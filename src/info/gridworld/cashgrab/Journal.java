@@ -0,0 +1,261 @@
+package info.gridworld.cashgrab;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A <code>Journal</code> records every change to the balances of the ledgers attached to it, as
+ * fixed-width binary records appended to memory-mapped segment files in a directory. Writers claim
+ * a record with a single atomic increment and fill it with absolute puts, so recording neither
+ * allocates nor makes system calls. A background thread maps the next segment's file once the
+ * current segment is half full, so the writer of the first record of a segment only swaps in the
+ * mapped segment; it maps the file itself only if segments fill faster than they can be mapped.
+ * <br />
+ * Each record is {@link #RECORD_SIZE} bytes, little-endian: the tick (<code>long</code>),
+ * the amount (<code>long</code>), the source and destination accounts (<code>int</code>s), the
+ * source ledger (<code>int</code>, or {@link #DEPOSIT} or {@link #SET} for changes without a
+ * source) and the destination ledger plus one (<code>int</code>). The last field is written last
+ * and is never 0, so a reader can tell filled records from empty ones. {@link JournalReader}
+ * replays a journal. <br />
+ * A record is claimed after its change has been applied, so concurrent changes to one account may
+ * be recorded in a different order than they were applied. Every record therefore holds the amount
+ * a balance changed by, even for a balance that was set, and replaying the records in any order
+ * ends in the same balances.
+ */
+public final class Journal implements Closeable {
+  public static final int RECORD_SIZE = 32;
+  /**
+   * The source ledger of a deposit that doesn't come from another account.
+   */
+  public static final int DEPOSIT = -1;
+  /**
+   * The source ledger of a record of a balance that was set; its amount is the new balance minus
+   * the old one.
+   */
+  public static final int SET = -2;
+  static final int TICK = 0;
+  static final int AMOUNT = 8;
+  static final int SRC = 16;
+  static final int DEST = 20;
+  static final int SRC_LEDGER = 24;
+  static final int DEST_LEDGER = 28;
+  static final String SEGMENT_FORMAT = "journal-%010d.seg";
+  static final String SEGMENT_GLOB = "journal-*.seg";
+  private static final long IDLE_NANOS = 1_000_000;
+
+  @Getter private final Path directory;
+  @Getter private final int recordsPerSegment;
+  private final LongSupplier clock;
+  private final AtomicLong claimed = new AtomicLong();
+  private int ledgers = 0;
+  /**
+   * The segment being filled, and the one before it, which writers that claimed a record just
+   * before a rotation may still be filling. A writer that finds neither to be its segment maps its
+   * segment again.
+   */
+  private volatile Segment current;
+  private volatile Segment previous;
+  /**
+   * The segment after the current one, once the mapper has mapped it.
+   */
+  private volatile Segment next = null;
+  private final Thread mapper;
+  private volatile boolean closed = false;
+
+  @RequiredArgsConstructor
+  private static final class Segment {
+    private final long number;
+    private final MappedByteBuffer buffer;
+  }
+
+  /**
+   * Opens a new journal in a directory. A directory that already holds a journal is refused
+   * rather than overwritten, so an earlier run's records are never lost.
+   *
+   * @param directory the directory for the segment files, created if needed
+   * @param recordsPerSegment the number of records in each segment file
+   * @param clock the current tick, e.g. <code>world::getSteps</code>
+   * @throws IllegalArgumentException if <code>directory</code> already holds segment files
+   */
+  public Journal(final @NonNull Path directory, final int recordsPerSegment,
+    final @NonNull LongSupplier clock) {
+    if (recordsPerSegment < 1
+      || (long) recordsPerSegment * Journal.RECORD_SIZE > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+        "recordsPerSegment out of range: " + recordsPerSegment);
+    }
+    this.directory = directory;
+    this.recordsPerSegment = recordsPerSegment;
+    this.clock = clock;
+    try {
+      Files.createDirectories(directory);
+      try (DirectoryStream<Path> old =
+        Files.newDirectoryStream(directory, Journal.SEGMENT_GLOB)) {
+        if (old.iterator().hasNext()) {
+          throw new IllegalArgumentException(
+            "Directory " + directory + " already holds a journal");
+        }
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.current = new Segment(0, this.map(0));
+    this.previous = this.current;
+    this.mapper = new Thread(this::mapAhead, "gridworld-journal");
+    this.mapper.setDaemon(true);
+    this.mapper.start();
+  }
+
+  /**
+   * Opens a new journal with segments of a million records.
+   */
+  public Journal(final @NonNull Path directory,
+    final @NonNull LongSupplier clock) {
+    this(directory, 1 << 20, clock);
+  }
+
+  /**
+   * Starts recording the changes to a ledger. A ledger records to one journal for good, and should
+   * be attached before its first balance is set, so the journal can rebuild it. A ledger that
+   * receives a transfer from an attached ledger is attached automatically if it isn't attached
+   * yet.
+   *
+   * @param ledger the ledger to record
+   * @return the id of the ledger in this journal
+   * @throws IllegalStateException if the ledger is attached to another journal
+   */
+  public synchronized int attach(final @NonNull Ledger ledger) {
+    if (ledger.getJournal() != this) {
+      ledger.attach(this, this.ledgers);
+      this.ledgers++;
+    }
+    return ledger.getJournalId();
+  }
+
+  /**
+   * Gets the number of records written so far.
+   */
+  public long size() {
+    return this.claimed.get();
+  }
+
+  void record(final int srcLedger, final int src, final int destLedger,
+    final int dest, final long amount) {
+    final long seq = this.claimed.getAndIncrement();
+    final MappedByteBuffer segment = this.segment(seq / this.recordsPerSegment);
+    final int at = (int) (seq % this.recordsPerSegment) * Journal.RECORD_SIZE;
+    segment.putLong(at + Journal.TICK, this.clock.getAsLong());
+    segment.putLong(at + Journal.AMOUNT, amount);
+    segment.putInt(at + Journal.SRC, src);
+    segment.putInt(at + Journal.DEST, dest);
+    segment.putInt(at + Journal.SRC_LEDGER, srcLedger);
+    segment.putInt(at + Journal.DEST_LEDGER, destLedger + 1);
+  }
+
+  /**
+   * Writes the mapped segments to disk.
+   */
+  public synchronized void force() {
+    this.previous.buffer.force();
+    this.current.buffer.force();
+  }
+
+  /**
+   * Stops mapping segments ahead and writes the mapped segments to disk.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    LockSupport.unpark(this.mapper);
+    try {
+      this.mapper.join();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    this.force();
+  }
+
+  private MappedByteBuffer segment(final long number) {
+    final Segment current = this.current;
+    if (current.number == number) {
+      return current.buffer;
+    }
+    final Segment previous = this.previous;
+    if (previous.number == number) {
+      return previous.buffer;
+    }
+    return this.rotate(number);
+  }
+
+  private synchronized MappedByteBuffer rotate(final long number) {
+    final Segment current = this.current;
+    if (current.number == number) {
+      return current.buffer;
+    }
+    final Segment next = this.next;
+    final Segment segment = next != null && next.number == number ? next
+      : new Segment(number, this.map(number));
+    if (number > current.number) {
+      this.previous = current;
+      this.current = segment;
+      if (segment == next) {
+        this.next = null;
+      }
+    }
+    return segment.buffer;
+  }
+
+  /**
+   * Maps the segment after the current one once the current one is half full, until closed.
+   */
+  private void mapAhead() {
+    while (!this.closed) {
+      final Segment current = this.current;
+      final Segment next = this.next;
+      final long filled =
+        this.claimed.get() - current.number * this.recordsPerSegment;
+      if ((next == null || next.number <= current.number)
+        && filled >= this.recordsPerSegment / 2) {
+        final Segment mapped =
+          new Segment(current.number + 1, this.map(current.number + 1));
+        synchronized (this) {
+          if (mapped.number > this.current.number) {
+            this.next = mapped;
+          }
+        }
+        continue;
+      }
+      LockSupport.parkNanos(Journal.IDLE_NANOS);
+    }
+  }
+
+  private MappedByteBuffer map(final long number) {
+    final Path file =
+      this.directory.resolve(String.format(Journal.SEGMENT_FORMAT, number));
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+      StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0,
+        (long) this.recordsPerSegment * Journal.RECORD_SIZE);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      return buffer;
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package info.gridworld.cashgrab;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * A <code>JournalReader</code> reads the segments a {@link Journal} wrote to a directory, in the
+ * order the records were claimed, and can rebuild the ledgers as they were after any tick.
+ */
+public final class JournalReader {
+  /**
+   * Receives the fields of one journal record.
+   */
+  @FunctionalInterface
+  public interface RecordConsumer {
+    /**
+     * @param tick the tick the change was made in
+     * @param srcLedger the ledger the money came from, or {@link Journal#DEPOSIT} or
+     *          {@link Journal#SET}
+     * @param src the account the money came from, if any
+     * @param destLedger the ledger whose balance changed
+     * @param dest the account whose balance changed
+     * @param amount the amount moved, or the change from the old balance for {@link Journal#SET}
+     */
+    void accept(long tick, int srcLedger, int src, int destLedger, int dest,
+      long amount);
+  }
+
+  @Getter private final Path directory;
+
+  public JournalReader(final @NonNull Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Reads every record of the journal.
+   *
+   * @param consumer the consumer of the records
+   * @return the number of records read
+   */
+  public long forEach(final @NonNull RecordConsumer consumer) {
+    long count = 0;
+    for (final Path file : this.segments()) {
+      final MappedByteBuffer segment;
+      try (FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.READ)) {
+        segment = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      segment.order(ByteOrder.LITTLE_ENDIAN);
+      final int limit = segment.limit() - Journal.RECORD_SIZE;
+      for (int at = 0; at <= limit; at += Journal.RECORD_SIZE) {
+        final int destLedger = segment.getInt(at + Journal.DEST_LEDGER) - 1;
+        if (destLedger < 0) {
+          // never filled, because the journal ended or its writer crashed
+          continue;
+        }
+        consumer.accept(segment.getLong(at + Journal.TICK),
+          segment.getInt(at + Journal.SRC_LEDGER),
+          segment.getInt(at + Journal.SRC), destLedger,
+          segment.getInt(at + Journal.DEST),
+          segment.getLong(at + Journal.AMOUNT));
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Rebuilds the ledgers from the records of all ticks up to a given one.
+   *
+   * @param tick the last tick to replay
+   * @return new ledgers with the balances after <code>tick</code>, by journal id
+   */
+  public Map<Integer, Ledger> balancesAt(final long tick) {
+    final Map<Integer, Ledger> ledgers = new HashMap<>();
+    this.forEach((t, srcLedger, src, destLedger, dest, amount) -> {
+      if (t > tick) {
+        return;
+      }
+      final Ledger ledger =
+        ledgers.computeIfAbsent(destLedger, id -> new Ledger());
+      // every record is a change, so the order the records were claimed in doesn't matter
+      if (srcLedger != Journal.DEPOSIT && srcLedger != Journal.SET) {
+        ledgers.computeIfAbsent(srcLedger, id -> new Ledger()).deposit(src,
+          -amount);
+      }
+      ledger.deposit(dest, amount);
+    });
+    return ledgers;
+  }
+
+  private List<Path> segments() {
+    final List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> segments =
+      Files.newDirectoryStream(this.directory, Journal.SEGMENT_GLOB)) {
+      segments.forEach(files::add);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    // segment numbers are zero-padded, so names sort in order
+    Collections.sort(files);
+    return files;
+  }
+}
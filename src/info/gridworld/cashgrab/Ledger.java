@@ -0,0 +1,312 @@
+package info.gridworld.cashgrab;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+/**
+ * A <code>Ledger</code> keeps the balances of accounts numbered from 0 in dense pages of
+ * <code>long</code>s, so reading or moving money never boxes. Every balance is updated atomically:
+ * a transfer takes money out of its source with a compare-and-set and then adds it to its
+ * destination, so any number of threads may transfer at once without locks and without losing
+ * money. Only opening an account beyond the current pages takes a lock. <br />
+ * How far an account may be overdrawn is decided in one place, by the overdraft limit given at
+ * construction: a transfer moves at most as much as its source can give, and never fails halfway.
+ * <br />
+ * A ledger attached to a {@link Journal} records every change to its balances there, and a ledger
+ * with an emptied listener tells it whenever a positive balance drops to zero or below.
+ */
+public final class Ledger {
+  private static final int PAGE_BITS = 8;
+  private static final int PAGE_SIZE = 1 << Ledger.PAGE_BITS;
+  private static final int PAGE_MASK = Ledger.PAGE_SIZE - 1;
+
+  /**
+   * How far below zero a balance may go.
+   */
+  @Getter private final long overdraftLimit;
+  private volatile AtomicLongArray[] pages = new AtomicLongArray[0];
+  /**
+   * The journal recording the changes to this ledger, or <code>null</code>.
+   */
+  @Getter private volatile Journal journal = null;
+  /**
+   * The id of this ledger in its journal.
+   */
+  @Getter private int journalId = -1;
+  /**
+   * Called with the account whenever a positive balance drops to zero or below, on the thread that
+   * took the money out, or <code>null</code>.
+   */
+  @Getter @Setter private volatile IntConsumer emptiedListener = null;
+
+  /**
+   * Constructs a ledger whose accounts can't be overdrawn.
+   */
+  public Ledger() {
+    this(0);
+  }
+
+  /**
+   * Constructs a ledger whose accounts may be overdrawn by up to a limit.
+   *
+   * @param overdraftLimit how far below zero a balance may go
+   */
+  public Ledger(final long overdraftLimit) {
+    if (overdraftLimit < 0) {
+      throw new IllegalArgumentException("overdraftLimit < 0");
+    }
+    this.overdraftLimit = overdraftLimit;
+  }
+
+  /**
+   * Gets the balance of an account.
+   *
+   * @param account the account id
+   * @return the balance, 0 for an account that was never used
+   */
+  public long getBalance(final int account) {
+    final AtomicLongArray[] pages = this.pages;
+    final int page = Ledger.pageOf(account);
+    return page < pages.length ? pages[page].get(account & Ledger.PAGE_MASK)
+      : 0;
+  }
+
+  /**
+   * Sets the balance of an account, bypassing the overdraft limit. A journal records the change
+   * from the old balance, so the record may be replayed in any order with concurrent transfers.
+   *
+   * @param account the account id
+   * @param balance the new balance
+   */
+  public void setBalance(final int account, final long balance) {
+    final long old =
+      this.page(account).getAndSet(account & Ledger.PAGE_MASK, balance);
+    final Journal journal = this.journal;
+    if (journal != null) {
+      journal.record(Journal.SET, 0, this.journalId, account, balance - old);
+    }
+    if (old > 0 && balance <= 0) {
+      this.emptied(account);
+    }
+  }
+
+  /**
+   * Adds money to an account, or takes it away if <code>amount</code> is negative, bypassing the
+   * overdraft limit.
+   *
+   * @param account the account id
+   * @param amount the amount to add
+   * @return the new balance
+   */
+  public long deposit(final int account, final long amount) {
+    final long balance =
+      this.page(account).addAndGet(account & Ledger.PAGE_MASK, amount);
+    final Journal journal = this.journal;
+    if (journal != null) {
+      journal.record(Journal.DEPOSIT, 0, this.journalId, account, amount);
+    }
+    if (balance <= 0 && balance - amount > 0) {
+      this.emptied(account);
+    }
+    return balance;
+  }
+
+  /**
+   * Moves money between two accounts of this ledger.
+   *
+   * @see #transfer(int, Ledger, int, long)
+   */
+  public long transfer(final int src, final int dest, final long amount) {
+    return this.transfer(src, this, dest, amount);
+  }
+
+  /**
+   * Moves up to <code>amount</code> from an account of this ledger to an account of another
+   * ledger, as much as the overdraft limit of this ledger allows.
+   *
+   * @param src the account to take the money from
+   * @param destLedger the ledger of the receiving account
+   * @param dest the account to give the money to
+   * @param amount the most to move, not negative
+   * @return the amount actually moved; a transfer from an account to itself changes nothing and
+   *         returns how much it could have moved
+   * @throws IllegalStateException if this ledger records to a journal and
+   *           <code>destLedger</code> records to another one
+   */
+  public long transfer(final int src, final @NonNull Ledger destLedger,
+    final int dest, final long amount) {
+    if (amount < 0) {
+      throw new IllegalArgumentException("amount < 0");
+    }
+    if (destLedger == this && dest == src) {
+      return Math.min(amount, this.withdrawable(this.getBalance(src)));
+    }
+    final Journal journal = this.journal;
+    if (journal != null && destLedger.journal != journal) {
+      // once per destination ledger, before any money moves
+      journal.attach(destLedger);
+    }
+    final AtomicLongArray srcPage = this.page(src);
+    final int srcIndex = src & Ledger.PAGE_MASK;
+    long balance;
+    long moved;
+    for (;;) {
+      balance = srcPage.get(srcIndex);
+      moved = Math.min(amount, this.withdrawable(balance));
+      if (moved <= 0) {
+        return 0;
+      }
+      if (srcPage.compareAndSet(srcIndex, balance, balance - moved)) {
+        break;
+      }
+    }
+    destLedger.page(dest).addAndGet(dest & Ledger.PAGE_MASK, moved);
+    if (journal != null) {
+      journal.record(this.journalId, src, destLedger.journalId, dest, moved);
+    }
+    if (balance > 0 && balance - moved <= 0) {
+      this.emptied(src);
+    }
+    return moved;
+  }
+
+  /**
+   * Records every later change to this ledger in a journal, see {@link Journal#attach(Ledger)}.
+   *
+   * @throws IllegalStateException if this ledger is attached to another journal
+   */
+  synchronized void attach(final Journal journal, final int journalId) {
+    if (this.journal != null) {
+      throw new IllegalStateException(
+        "Ledger is already attached to another journal");
+    }
+    this.journalId = journalId;
+    this.journal = journal;
+  }
+
+  /**
+   * Starts a batch of transfers to be applied together, e.g. at the end of a step.
+   *
+   * @return a new, empty batch
+   */
+  public Batch batch() {
+    return new Batch();
+  }
+
+  private void emptied(final int account) {
+    final IntConsumer listener = this.emptiedListener;
+    if (listener != null) {
+      listener.accept(account);
+    }
+  }
+
+  /**
+   * Gets how much can be taken out of an account with a given balance.
+   */
+  private long withdrawable(final long balance) {
+    return Math.max(balance + this.overdraftLimit, 0);
+  }
+
+  private static int pageOf(final int account) {
+    if (account < 0) {
+      throw new IndexOutOfBoundsException("Account " + account);
+    }
+    return account >>> Ledger.PAGE_BITS;
+  }
+
+  /**
+   * Gets the page of an account, opening it if needed.
+   */
+  private AtomicLongArray page(final int account) {
+    final int page = Ledger.pageOf(account);
+    final AtomicLongArray[] pages = this.pages;
+    if (page < pages.length) {
+      return pages[page];
+    }
+    return this.grow(page);
+  }
+
+  private synchronized AtomicLongArray grow(final int page) {
+    AtomicLongArray[] pages = this.pages;
+    if (page >= pages.length) {
+      final int oldLength = pages.length;
+      // existing pages are shared, not copied, so no concurrent update is lost
+      pages = Arrays.copyOf(pages, Math.max(page + 1, 2 * oldLength));
+      for (int i = oldLength; i < pages.length; i++) {
+        pages[i] = new AtomicLongArray(Ledger.PAGE_SIZE);
+      }
+      this.pages = pages;
+    }
+    return pages[page];
+  }
+
+  /**
+   * A <code>Batch</code> records transfers from the accounts of its ledger in parallel primitive
+   * arrays and applies them later in the order they were recorded. A batch is not thread-safe.
+   */
+  public final class Batch {
+    private int size = 0;
+    private int[] srcs = new int[16];
+    private Ledger[] destLedgers = new Ledger[16];
+    private int[] dests = new int[16];
+    private long[] amounts = new long[16];
+
+    private Batch() {}
+
+    public int size() {
+      return this.size;
+    }
+
+    public Batch add(final int src, final int dest, final long amount) {
+      return this.add(src, Ledger.this, dest, amount);
+    }
+
+    /**
+     * Records a transfer to apply later.
+     *
+     * @see Ledger#transfer(int, Ledger, int, long)
+     * @return this batch
+     */
+    public Batch add(final int src, final @NonNull Ledger destLedger,
+      final int dest, final long amount) {
+      if (amount < 0) {
+        throw new IllegalArgumentException("amount < 0");
+      }
+      if (this.size == this.srcs.length) {
+        final int capacity = 2 * this.size;
+        this.srcs = Arrays.copyOf(this.srcs, capacity);
+        this.destLedgers = Arrays.copyOf(this.destLedgers, capacity);
+        this.dests = Arrays.copyOf(this.dests, capacity);
+        this.amounts = Arrays.copyOf(this.amounts, capacity);
+      }
+      this.srcs[this.size] = src;
+      this.destLedgers[this.size] = destLedger;
+      this.dests[this.size] = dest;
+      this.amounts[this.size] = amount;
+      this.size++;
+      return this;
+    }
+
+    /**
+     * Applies the recorded transfers in order and empties this batch. Each transfer moves as much
+     * as the overdraft limit allows at the time it is applied.
+     *
+     * @return the total amount moved
+     */
+    public long apply() {
+      long total = 0;
+      for (int i = 0; i < this.size; i++) {
+        total += Ledger.this.transfer(this.srcs[i], this.destLedgers[i],
+          this.dests[i], this.amounts[i]);
+        this.destLedgers[i] = null;
+      }
+      this.size = 0;
+      return total;
+    }
+  }
+}
@@ -10,12 +10,98 @@
 package info.gridworld.grid;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * <code>AbstractGrid</code> contains the methods that are common to grid implementations. <br />
  * The implementation of this class is testable on the AP CS AB exam.
  */
 public abstract class AbstractGrid<E> implements Grid<E> {
+  // row and column offsets of the eight compass directions, starting at NORTH
+  private static final int[] ADJACENT_ROWS = {-1, -1, 0, 1, 1, 1, 0, -1};
+  private static final int[] ADJACENT_COLS = {0, 1, 1, 1, 0, -1, -1, -1};
+
+  private SpatialIndex spatialIndex;
+  private Map<Class<?>, Object> attachments = null;
+
+  @Override
+  public SpatialIndex getSpatialIndex() {
+    return this.spatialIndex;
+  }
+
+  /**
+   * Attaches a spatial index to this grid, filling it with the currently occupied locations. From
+   * then on <code>put</code> and <code>remove</code> keep it up to date.
+   * 
+   * @param index the index to attach, or <code>null</code> to detach the current one
+   */
+  public void setSpatialIndex(final SpatialIndex index) {
+    if (index != null) {
+      index.clear();
+      for (final Location loc : this.getOccupiedLocations()) {
+        index.add(loc.getRow(), loc.getCol());
+      }
+    }
+    this.spatialIndex = index;
+  }
+
+  /**
+   * Gets the object attached to this grid under a type.
+   * 
+   * @param type the type the object was attached under
+   * @return the attached object, or <code>null</code> if there is none
+   */
+  public <T> T getAttachment(final Class<T> type) {
+    return this.attachments == null ? null : type.cast(this.attachments.get(type));
+  }
+
+  /**
+   * Attaches an object to this grid under a type, e.g. the registry a world keeps of the grid's
+   * occupants, so anything that has the grid can find it. Each type holds at most one object.
+   * 
+   * @param type the type to attach the object under
+   * @param attachment the object to attach, or <code>null</code> to detach the current one
+   */
+  public <T> void setAttachment(final Class<T> type, final T attachment) {
+    if (attachment == null) {
+      if (this.attachments != null) {
+        this.attachments.remove(type);
+      }
+      return;
+    }
+    if (this.attachments == null) {
+      this.attachments = new HashMap<>();
+    }
+    this.attachments.put(type, attachment);
+  }
+
+  /**
+   * Tells the attached spatial index, if any, that a location has become occupied. Implementations
+   * call this from <code>put</code> when the location was previously empty.
+   * 
+   * @param row the row of the location
+   * @param col the column of the location
+   */
+  protected void indexAdded(final int row, final int col) {
+    if (this.spatialIndex != null) {
+      this.spatialIndex.add(row, col);
+    }
+  }
+
+  /**
+   * Tells the attached spatial index, if any, that a location has become empty. Implementations
+   * call this from <code>remove</code> when the location was previously occupied.
+   * 
+   * @param row the row of the location
+   * @param col the column of the location
+   */
+  protected void indexRemoved(final int row, final int col) {
+    if (this.spatialIndex != null) {
+      this.spatialIndex.remove(row, col);
+    }
+  }
+
   @Override
   public ArrayList<E> getNeighbors(final Location loc) {
     final ArrayList<E> neighbors = new ArrayList<E>();
@@ -28,13 +114,15 @@ public abstract class AbstractGrid<E> implements Grid<E> {
   @Override
   public ArrayList<Location> getValidAdjacentLocations(final Location loc) {
     final ArrayList<Location> locs = new ArrayList<Location>();
-    int d = Location.NORTH;
-    for (int i = 0; i < Location.FULL_CIRCLE / Location.HALF_RIGHT; i++) {
-      final Location neighborLoc = loc.getAdjacentLocation(d);
-      if (this.isValid(neighborLoc)) {
-        locs.add(neighborLoc);
+    final int row = loc.getRow();
+    final int col = loc.getCol();
+    // same order as repeatedly turning HALF_RIGHT from NORTH
+    for (int i = 0; i < AbstractGrid.ADJACENT_ROWS.length; i++) {
+      final int r = row + AbstractGrid.ADJACENT_ROWS[i];
+      final int c = col + AbstractGrid.ADJACENT_COLS[i];
+      if (this.isValid(r, c)) {
+        locs.add(this.getLocation(r, c));
       }
-      d = d + Location.HALF_RIGHT;
     }
     return locs;
   }
@@ -12,6 +12,7 @@
 package info.gridworld.grid;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * A <code>BoundedGrid</code> is a rectangular grid with a finite number of rows and columns. <br />
@@ -19,6 +20,10 @@ import java.util.ArrayList;
  */
 public class BoundedGrid<E> extends AbstractGrid<E> {
   private final E[][] occupants; // the array storing the grid elements
+  private final long[] occupied; // one bit per cell, row-major, set iff occupied
+  private int occupiedCount; // number of set bits in occupied
+  // canonical location per cell, filled on first use
+  private final AtomicReferenceArray<Location> locations;
 
   /**
    * Constructs an empty bounded grid with the given dimensions. (Precondition:
@@ -36,6 +41,13 @@ public class BoundedGrid<E> extends AbstractGrid<E> {
       throw new IllegalArgumentException("cols <= 0");
     }
     this.occupants = (E[][]) new Object[rows][cols];
+    final long cells = (long) rows * cols;
+    if (cells > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("rows * cols > Integer.MAX_VALUE");
+    }
+    this.occupied = new long[(int) ((cells + 63) >>> 6)];
+    this.occupiedCount = 0;
+    this.locations = new AtomicReferenceArray<>((int) cells);
   }
 
   @Override
@@ -52,21 +64,51 @@ public class BoundedGrid<E> extends AbstractGrid<E> {
 
   @Override
   public boolean isValid(final Location loc) {
-    return 0 <= loc.getRow() && loc.getRow() < this.getNumRows()
-      && 0 <= loc.getCol() && loc.getCol() < this.getNumCols();
+    return this.isValid(loc.getRow(), loc.getCol());
+  }
+
+  @Override
+  public boolean isValid(final int row, final int col) {
+    return 0 <= row && row < this.getNumRows() && 0 <= col
+      && col < this.getNumCols();
+  }
+
+  /**
+   * Gets the canonical location with the given coordinates. Every call with the same valid
+   * coordinates returns the same instance, even from several threads at once: the first instance
+   * published for a cell wins.
+   * 
+   * @param row the row of the location
+   * @param col the column of the location
+   * @return the shared location for a valid cell, or a new location otherwise
+   */
+  @Override
+  public Location getLocation(final int row, final int col) {
+    if (!this.isValid(row, col)) {
+      return new Location(row, col);
+    }
+    final int index = row * this.getNumCols() + col;
+    final Location loc = this.locations.get(index);
+    if (loc != null) {
+      return loc;
+    }
+    final Location newLoc = new Location(row, col);
+    return this.locations.compareAndSet(index, null, newLoc) ? newLoc
+      : this.locations.get(index);
   }
 
   @Override
   public ArrayList<Location> getOccupiedLocations() {
-    final ArrayList<Location> theLocations = new ArrayList<Location>();
-    // Look at all grid locations.
-    for (int r = 0; r < this.getNumRows(); r++) {
-      for (int c = 0; c < this.getNumCols(); c++) {
-        // If there's an object at this location, put it in the array.
-        final Location loc = new Location(r, c);
-        if (this.get(loc) != null) {
-          theLocations.add(loc);
-        }
+    final ArrayList<Location> theLocations =
+      new ArrayList<Location>(this.occupiedCount);
+    final int cols = this.getNumCols();
+    // Only look at the words of the occupancy bitmap that have a bit set.
+    for (int w = 0; w < this.occupied.length; w++) {
+      long word = this.occupied[w];
+      while (word != 0) {
+        final int index = (w << 6) + Long.numberOfTrailingZeros(word);
+        theLocations.add(this.getLocation(index / cols, index % cols));
+        word &= word - 1;
       }
     }
     return theLocations;
@@ -74,34 +116,81 @@ public class BoundedGrid<E> extends AbstractGrid<E> {
 
   @Override
   public E get(final Location loc) {
-    if (!this.isValid(loc)) {
-      throw new IllegalArgumentException("Location " + loc + " is not valid");
+    return this.get(loc.getRow(), loc.getCol());
+  }
+
+  @Override
+  public E get(final int row, final int col) {
+    if (!this.isValid(row, col)) {
+      throw new IllegalArgumentException(
+        "Location (" + row + ", " + col + ") is not valid");
     }
-    return this.occupants[loc.getRow()][loc.getCol()];
+    return this.occupants[row][col];
   }
 
   @Override
   public E put(final Location loc, final E obj) {
-    if (!this.isValid(loc)) {
-      throw new IllegalArgumentException("Location " + loc + " is not valid");
+    return this.put(loc.getRow(), loc.getCol(), obj);
+  }
+
+  @Override
+  public E put(final int row, final int col, final E obj) {
+    if (!this.isValid(row, col)) {
+      throw new IllegalArgumentException(
+        "Location (" + row + ", " + col + ") is not valid");
     }
     if (obj == null) {
       throw new NullPointerException("obj == null");
     }
     // Add the object to the grid.
-    final E oldOccupant = this.get(loc);
-    this.occupants[loc.getRow()][loc.getCol()] = obj;
+    final E oldOccupant = this.occupants[row][col];
+    this.occupants[row][col] = obj;
+    if (oldOccupant == null) {
+      this.markOccupied(row, col);
+      this.indexAdded(row, col);
+    }
     return oldOccupant;
   }
 
   @Override
   public E remove(final Location loc) {
-    if (!this.isValid(loc)) {
-      throw new IllegalArgumentException("Location " + loc + " is not valid");
+    return this.remove(loc.getRow(), loc.getCol());
+  }
+
+  @Override
+  public E remove(final int row, final int col) {
+    if (!this.isValid(row, col)) {
+      throw new IllegalArgumentException(
+        "Location (" + row + ", " + col + ") is not valid");
     }
     // Remove the object from the grid.
-    final E r = this.get(loc);
-    this.occupants[loc.getRow()][loc.getCol()] = null;
+    final E r = this.occupants[row][col];
+    this.occupants[row][col] = null;
+    if (r != null) {
+      this.markEmpty(row, col);
+      this.indexRemoved(row, col);
+    }
     return r;
   }
+
+  /**
+   * Gets the number of occupied locations in this grid without enumerating them.
+   * 
+   * @return the number of occupied locations
+   */
+  public int getOccupiedCount() {
+    return this.occupiedCount;
+  }
+
+  private void markOccupied(final int row, final int col) {
+    final int index = row * this.getNumCols() + col;
+    this.occupied[index >>> 6] |= 1L << index;
+    this.occupiedCount++;
+  }
+
+  private void markEmpty(final int row, final int col) {
+    final int index = row * this.getNumCols() + col;
+    this.occupied[index >>> 6] &= ~(1L << index);
+    this.occupiedCount--;
+  }
 }
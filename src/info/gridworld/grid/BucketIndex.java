@@ -0,0 +1,217 @@
+package info.gridworld.grid;
+
+import java.util.Arrays;
+
+/**
+ * A <code>BucketIndex</code> is a {@link SpatialIndex} for bounded grids. It divides the grid
+ * into uniform square buckets and keeps, for each bucket, a packed list of its occupied cells, so a
+ * query only touches the buckets that overlap the query area. <br />
+ * This class is not tested on the AP CS A and AB exams.
+ */
+public class BucketIndex implements SpatialIndex {
+  private static final int BUCKET_SHIFT = 3;
+  private static final int BUCKET_SIZE = 1 << BucketIndex.BUCKET_SHIFT;
+  private static final int INITIAL_BUCKET_CAPACITY = 4;
+
+  private final int numRows;
+  private final int numCols;
+  private final int bucketRows;
+  private final int bucketCols;
+  private final int[][] buckets; // packed row * numCols + col, null until first use
+  private final int[] counts;
+  private int size;
+
+  /**
+   * Constructs an empty index for a bounded grid with the given dimensions.
+   * 
+   * @param rows number of rows in the grid
+   * @param cols number of columns in the grid
+   */
+  public BucketIndex(final int rows, final int cols) {
+    if (rows <= 0) {
+      throw new IllegalArgumentException("rows <= 0");
+    }
+    if (cols <= 0) {
+      throw new IllegalArgumentException("cols <= 0");
+    }
+    this.numRows = rows;
+    this.numCols = cols;
+    this.bucketRows = (rows + BucketIndex.BUCKET_SIZE - 1) >> BucketIndex.BUCKET_SHIFT;
+    this.bucketCols = (cols + BucketIndex.BUCKET_SIZE - 1) >> BucketIndex.BUCKET_SHIFT;
+    this.buckets = new int[this.bucketRows * this.bucketCols][];
+    this.counts = new int[this.bucketRows * this.bucketCols];
+    this.size = 0;
+  }
+
+  @Override
+  public void add(final int row, final int col) {
+    final int b = this.bucketOf(row, col);
+    int[] cells = this.buckets[b];
+    if (cells == null) {
+      cells = new int[BucketIndex.INITIAL_BUCKET_CAPACITY];
+      this.buckets[b] = cells;
+    } else if (this.counts[b] == cells.length) {
+      cells = Arrays.copyOf(cells, 2 * cells.length);
+      this.buckets[b] = cells;
+    }
+    cells[this.counts[b]++] = row * this.numCols + col;
+    this.size++;
+  }
+
+  @Override
+  public void remove(final int row, final int col) {
+    final int b = this.bucketOf(row, col);
+    final int[] cells = this.buckets[b];
+    final int packed = row * this.numCols + col;
+    for (int i = 0; i < this.counts[b]; i++) {
+      if (cells[i] == packed) {
+        cells[i] = cells[--this.counts[b]];
+        this.size--;
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(this.buckets, null);
+    Arrays.fill(this.counts, 0);
+    this.size = 0;
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public void forEachInRadius(final int row, final int col, final double radius,
+    final CellVisitor visitor) {
+    if (radius < 0) {
+      return;
+    }
+    final double r2 = radius * radius;
+    final int reach = (int) Math.min(Math.ceil(radius), Integer.MAX_VALUE / 2);
+    final int minBr = this.clampBucketRow(row - reach);
+    final int maxBr = this.clampBucketRow(row + reach);
+    final int minBc = this.clampBucketCol(col - reach);
+    final int maxBc = this.clampBucketCol(col + reach);
+    for (int br = minBr; br <= maxBr; br++) {
+      for (int bc = minBc; bc <= maxBc; bc++) {
+        if (this.bucketDist2(br, bc, row, col) > r2) {
+          continue;
+        }
+        final int b = br * this.bucketCols + bc;
+        final int[] cells = this.buckets[b];
+        for (int i = 0; i < this.counts[b]; i++) {
+          final int r = cells[i] / this.numCols;
+          final int c = cells[i] % this.numCols;
+          if (NearestCollector.dist2(row, col, r, c) <= r2) {
+            visitor.visit(r, c);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void forEachInRect(final int minRow, final int minCol, final int maxRow,
+    final int maxCol, final CellVisitor visitor) {
+    if (minRow > maxRow || minCol > maxCol) {
+      return;
+    }
+    final int minBr = this.clampBucketRow(minRow);
+    final int maxBr = this.clampBucketRow(maxRow);
+    final int minBc = this.clampBucketCol(minCol);
+    final int maxBc = this.clampBucketCol(maxCol);
+    for (int br = minBr; br <= maxBr; br++) {
+      for (int bc = minBc; bc <= maxBc; bc++) {
+        final int b = br * this.bucketCols + bc;
+        final int[] cells = this.buckets[b];
+        for (int i = 0; i < this.counts[b]; i++) {
+          final int r = cells[i] / this.numCols;
+          final int c = cells[i] % this.numCols;
+          if (minRow <= r && r <= maxRow && minCol <= c && c <= maxCol) {
+            visitor.visit(r, c);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void forEachNearest(final int row, final int col, final int k,
+    final double maxRadius, final CellVisitor visitor) {
+    if (k <= 0 || maxRadius < 0) {
+      return;
+    }
+    final NearestCollector nearest = new NearestCollector(k, maxRadius);
+    final int centerBr = this.clampBucketRow(row);
+    final int centerBc = this.clampBucketCol(col);
+    final int maxRing = Math.max(Math.max(centerBr, this.bucketRows - 1 - centerBr),
+      Math.max(centerBc, this.bucketCols - 1 - centerBc));
+    // search rings of buckets outward until no unvisited bucket can hold a closer cell
+    for (int ring = 0; ring <= maxRing; ring++) {
+      boolean anyInReach = false;
+      for (int br = centerBr - ring; br <= centerBr + ring; br++) {
+        if (br < 0 || br >= this.bucketRows) {
+          continue;
+        }
+        final boolean edgeRow = br == centerBr - ring || br == centerBr + ring;
+        for (int bc = centerBc - ring; bc <= centerBc + ring; bc += edgeRow ? 1
+          : 2 * ring) {
+          if (bc >= 0 && bc < this.bucketCols
+            && this.bucketDist2(br, bc, row, col) <= nearest.bound()) {
+            anyInReach = true;
+            this.offerBucket(br * this.bucketCols + bc, row, col, nearest);
+          }
+          if (ring == 0) {
+            break;
+          }
+        }
+      }
+      if (!anyInReach && ring > 0) {
+        break;
+      }
+    }
+    nearest.visit(visitor);
+  }
+
+  private void offerBucket(final int b, final int row, final int col,
+    final NearestCollector nearest) {
+    final int[] cells = this.buckets[b];
+    for (int i = 0; i < this.counts[b]; i++) {
+      final int r = cells[i] / this.numCols;
+      final int c = cells[i] % this.numCols;
+      if (r != row || c != col) {
+        nearest.offer(NearestCollector.dist2(row, col, r, c), r, c);
+      }
+    }
+  }
+
+  private int bucketOf(final int row, final int col) {
+    return (row >> BucketIndex.BUCKET_SHIFT) * this.bucketCols
+      + (col >> BucketIndex.BUCKET_SHIFT);
+  }
+
+  private int clampBucketRow(final int row) {
+    return Math.max(0, Math.min(this.numRows - 1, row)) >> BucketIndex.BUCKET_SHIFT;
+  }
+
+  private int clampBucketCol(final int col) {
+    return Math.max(0, Math.min(this.numCols - 1, col)) >> BucketIndex.BUCKET_SHIFT;
+  }
+
+  /**
+   * Gets the squared distance from a cell to the nearest cell of a bucket.
+   */
+  private double bucketDist2(final int br, final int bc, final int row, final int col) {
+    final int top = br << BucketIndex.BUCKET_SHIFT;
+    final int left = bc << BucketIndex.BUCKET_SHIFT;
+    final long dr = Math.max(0, Math.max((long) top - row,
+      (long) row - (top + BucketIndex.BUCKET_SIZE - 1)));
+    final long dc = Math.max(0, Math.max((long) left - col,
+      (long) col - (left + BucketIndex.BUCKET_SIZE - 1)));
+    return dr * dr + dc * dc;
+  }
+}
@@ -0,0 +1,252 @@
+package info.gridworld.grid;
+
+import java.util.ArrayList;
+
+/**
+ * A <code>ChunkedGrid</code> is an unbounded grid that stores its occupants in fixed-size square
+ * tiles of plain arrays. Tiles are found through an open-addressing table keyed by the packed tile
+ * coordinates, so lookups neither allocate nor go through {@link Location#hashCode()}. A tile is
+ * released as soon as its last occupant is removed. <br />
+ * This class is not tested on the AP CS A and AB exams.
+ */
+public class ChunkedGrid<E> extends AbstractGrid<E> {
+  private static final int TILE_SHIFT = 5;
+  private static final int TILE_SIZE = 1 << ChunkedGrid.TILE_SHIFT;
+  private static final int TILE_MASK = ChunkedGrid.TILE_SIZE - 1;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private static final class Tile {
+    private final int tileRow;
+    private final int tileCol;
+    private final Object[] cells =
+      new Object[ChunkedGrid.TILE_SIZE * ChunkedGrid.TILE_SIZE];
+    private int count;
+
+    private Tile(final int tileRow, final int tileCol) {
+      this.tileRow = tileRow;
+      this.tileCol = tileCol;
+    }
+  }
+
+  private long[] keys; // packed tile coordinates, valid where tiles[i] != null
+  private Tile[] tiles; // open-addressing slots, null when empty
+  private int tileCount;
+  private final LocationCache locationCache = new LocationCache();
+
+  /**
+   * Constructs an empty chunked grid.
+   */
+  public ChunkedGrid() {
+    this.keys = new long[ChunkedGrid.INITIAL_CAPACITY];
+    this.tiles = new Tile[ChunkedGrid.INITIAL_CAPACITY];
+    this.tileCount = 0;
+  }
+
+  @Override
+  public int getNumRows() {
+    return -1;
+  }
+
+  @Override
+  public int getNumCols() {
+    return -1;
+  }
+
+  @Override
+  public boolean isValid(final Location loc) {
+    return true;
+  }
+
+  @Override
+  public boolean isValid(final int row, final int col) {
+    return true;
+  }
+
+  @Override
+  public Location getLocation(final int row, final int col) {
+    return this.locationCache.get(row, col);
+  }
+
+  @Override
+  public ArrayList<Location> getOccupiedLocations() {
+    final ArrayList<Location> a = new ArrayList<Location>();
+    for (final Tile tile : this.tiles) {
+      if (tile == null) {
+        continue;
+      }
+      final int baseRow = tile.tileRow << ChunkedGrid.TILE_SHIFT;
+      final int baseCol = tile.tileCol << ChunkedGrid.TILE_SHIFT;
+      for (int i = 0; i < tile.cells.length; i++) {
+        if (tile.cells[i] != null) {
+          a.add(this.getLocation(baseRow + (i >> ChunkedGrid.TILE_SHIFT),
+            baseCol + (i & ChunkedGrid.TILE_MASK)));
+        }
+      }
+    }
+    return a;
+  }
+
+  @Override
+  public E get(final Location loc) {
+    if (loc == null) {
+      throw new NullPointerException("loc == null");
+    }
+    return this.get(loc.getRow(), loc.getCol());
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(final int row, final int col) {
+    final Tile tile = this.findTile(row >> ChunkedGrid.TILE_SHIFT,
+      col >> ChunkedGrid.TILE_SHIFT);
+    return tile == null ? null : (E) tile.cells[ChunkedGrid.cellIndex(row, col)];
+  }
+
+  @Override
+  public E put(final Location loc, final E obj) {
+    if (loc == null) {
+      throw new NullPointerException("loc == null");
+    }
+    if (obj == null) {
+      throw new NullPointerException("obj == null");
+    }
+    return this.put(loc.getRow(), loc.getCol(), obj);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E put(final int row, final int col, final E obj) {
+    if (obj == null) {
+      throw new NullPointerException("obj == null");
+    }
+    final Tile tile = this.findOrAddTile(row >> ChunkedGrid.TILE_SHIFT,
+      col >> ChunkedGrid.TILE_SHIFT);
+    final int i = ChunkedGrid.cellIndex(row, col);
+    final E old = (E) tile.cells[i];
+    tile.cells[i] = obj;
+    if (old == null) {
+      tile.count++;
+      this.indexAdded(row, col);
+    }
+    return old;
+  }
+
+  @Override
+  public E remove(final Location loc) {
+    if (loc == null) {
+      throw new NullPointerException("loc == null");
+    }
+    return this.remove(loc.getRow(), loc.getCol());
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E remove(final int row, final int col) {
+    final int tileRow = row >> ChunkedGrid.TILE_SHIFT;
+    final int tileCol = col >> ChunkedGrid.TILE_SHIFT;
+    final int slot = this.findSlot(tileRow, tileCol);
+    final Tile tile = this.tiles[slot];
+    if (tile == null) {
+      return null;
+    }
+    final int i = ChunkedGrid.cellIndex(row, col);
+    final E old = (E) tile.cells[i];
+    if (old == null) {
+      return null;
+    }
+    tile.cells[i] = null;
+    if (--tile.count == 0) {
+      this.deleteSlot(slot);
+    }
+    this.indexRemoved(row, col);
+    return old;
+  }
+
+  private static int cellIndex(final int row, final int col) {
+    return ((row & ChunkedGrid.TILE_MASK) << ChunkedGrid.TILE_SHIFT)
+      | (col & ChunkedGrid.TILE_MASK);
+  }
+
+  private static long packKey(final int tileRow, final int tileCol) {
+    return ((long) tileRow << 32) | (tileCol & 0xFFFFFFFFL);
+  }
+
+  private static int mix(final long key) {
+    // murmur3 finalizer, so neighboring tiles spread over the table
+    long h = key;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+
+  /**
+   * Finds the slot holding the given tile, or the empty slot where it would be inserted.
+   */
+  private int findSlot(final int tileRow, final int tileCol) {
+    final long key = ChunkedGrid.packKey(tileRow, tileCol);
+    final int mask = this.tiles.length - 1;
+    int slot = ChunkedGrid.mix(key) & mask;
+    while (this.tiles[slot] != null && this.keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private Tile findTile(final int tileRow, final int tileCol) {
+    return this.tiles[this.findSlot(tileRow, tileCol)];
+  }
+
+  private Tile findOrAddTile(final int tileRow, final int tileCol) {
+    int slot = this.findSlot(tileRow, tileCol);
+    if (this.tiles[slot] != null) {
+      return this.tiles[slot];
+    }
+    if (2 * (this.tileCount + 1) > this.tiles.length) {
+      this.resize(2 * this.tiles.length);
+      slot = this.findSlot(tileRow, tileCol);
+    }
+    final Tile tile = new Tile(tileRow, tileCol);
+    this.keys[slot] = ChunkedGrid.packKey(tileRow, tileCol);
+    this.tiles[slot] = tile;
+    this.tileCount++;
+    return tile;
+  }
+
+  /**
+   * Empties a slot, shifting later entries of its probe run back so no lookup is cut short.
+   */
+  private void deleteSlot(int slot) {
+    final int mask = this.tiles.length - 1;
+    this.tiles[slot] = null;
+    this.tileCount--;
+    int next = (slot + 1) & mask;
+    while (this.tiles[next] != null) {
+      final int home = ChunkedGrid.mix(this.keys[next]) & mask;
+      // move the entry back if its home is not cyclically within (slot, next]
+      if (((next - home) & mask) >= ((next - slot) & mask)) {
+        this.keys[slot] = this.keys[next];
+        this.tiles[slot] = this.tiles[next];
+        this.tiles[next] = null;
+        slot = next;
+      }
+      next = (next + 1) & mask;
+    }
+  }
+
+  private void resize(final int capacity) {
+    final long[] oldKeys = this.keys;
+    final Tile[] oldTiles = this.tiles;
+    this.keys = new long[capacity];
+    this.tiles = new Tile[capacity];
+    for (int i = 0; i < oldTiles.length; i++) {
+      if (oldTiles[i] != null) {
+        final int slot = this.findSlot(oldTiles[i].tileRow, oldTiles[i].tileCol);
+        this.keys[slot] = oldKeys[i];
+        this.tiles[slot] = oldTiles[i];
+      }
+    }
+  }
+}
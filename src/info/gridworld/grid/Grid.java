@@ -43,6 +43,32 @@ public interface Grid<E> {
    */
   boolean isValid(Location loc);
 
+  /**
+   * Checks whether the location with the given coordinates is valid in this grid. Implementations
+   * should override this method so that the check does not allocate a <code>Location</code>.
+   * 
+   * @param row the row of the location to check
+   * @param col the column of the location to check
+   * @return <code>true</code> if the location is valid in this grid, <code>false</code> otherwise
+   */
+  default boolean isValid(final int row, final int col) {
+    return this.isValid(new Location(row, col));
+  }
+
+  /**
+   * Gets a location with the given coordinates. Grids may return a shared instance for every call
+   * with the same coordinates, which saves allocating a new <code>Location</code> on hot paths.
+   * <br />
+   * Precondition: the location is valid in this grid
+   * 
+   * @param row the row of the location
+   * @param col the column of the location
+   * @return a location with the given row and column
+   */
+  default Location getLocation(final int row, final int col) {
+    return new Location(row, col);
+  }
+
   /**
    * Puts an object at a given location in this grid. <br />
    * Precondition: (1) <code>loc</code> is valid in this grid (2) <code>obj</code> is not
@@ -55,6 +81,21 @@ public interface Grid<E> {
    */
   E put(Location loc, E obj);
 
+  /**
+   * Puts an object at the location with the given coordinates in this grid. <br />
+   * Precondition: (1) the location is valid in this grid (2) <code>obj</code> is not
+   * <code>null</code>
+   * 
+   * @param row the row at which to put the object
+   * @param col the column at which to put the object
+   * @param obj the new object to be added
+   * @return the object previously at the location (or <code>null</code> if the location was
+   *         previously unoccupied)
+   */
+  default E put(final int row, final int col, final E obj) {
+    return this.put(new Location(row, col), obj);
+  }
+
   /**
    * Removes the object at a given location from this grid. <br />
    * Precondition: <code>loc</code> is valid in this grid
@@ -64,6 +105,18 @@ public interface Grid<E> {
    */
   E remove(Location loc);
 
+  /**
+   * Removes the object at the location with the given coordinates from this grid. <br />
+   * Precondition: the location is valid in this grid
+   * 
+   * @param row the row of the object that is to be removed
+   * @param col the column of the object that is to be removed
+   * @return the object that was removed (or <code>null<code> if the location is unoccupied)
+   */
+  default E remove(final int row, final int col) {
+    return this.remove(new Location(row, col));
+  }
+
   /**
    * Returns the object at a given location in this grid. <br />
    * Precondition: <code>loc</code> is valid in this grid
@@ -74,6 +127,20 @@ public interface Grid<E> {
    */
   E get(Location loc);
 
+  /**
+   * Returns the object at the location with the given coordinates in this grid. Implementations
+   * should override this method so that the lookup does not allocate a <code>Location</code>.
+   * <br />
+   * Precondition: the location is valid in this grid
+   * 
+   * @param row the row of a location in this grid
+   * @param col the column of a location in this grid
+   * @return the object at the location (or <code>null<code> if the location is unoccupied)
+   */
+  default E get(final int row, final int col) {
+    return this.get(new Location(row, col));
+  }
+
   /**
    * Gets the locations in this grid that contain objects.
    * 
@@ -81,6 +148,15 @@ public interface Grid<E> {
    */
   ArrayList<Location> getOccupiedLocations();
 
+  /**
+   * Gets the spatial index that is kept in sync with this grid, if there is one.
+   * 
+   * @return the spatial index of this grid, or <code>null</code> if it has none
+   */
+  default SpatialIndex getSpatialIndex() {
+    return null;
+  }
+
   /**
    * Gets the valid locations adjacent to a given location in all eight compass directions (north,
    * northeast, east, southeast, south, southwest, west, and northwest). <br />
@@ -0,0 +1,64 @@
+package info.gridworld.grid;
+
+/**
+ * Keeps the <code>k</code> closest cells offered so far, sorted by squared distance. Used by the
+ * spatial indexes to answer nearest-neighbor queries.
+ */
+final class NearestCollector {
+  private final long[] dist2;
+  private final int[] rows;
+  private final int[] cols;
+  private final long limit;
+  private int size;
+
+  NearestCollector(final int k, final double maxRadius) {
+    this.dist2 = new long[k];
+    this.rows = new int[k];
+    this.cols = new int[k];
+    this.limit = maxRadius >= Math.sqrt(Long.MAX_VALUE) ? Long.MAX_VALUE
+      : (long) Math.floor(maxRadius * maxRadius);
+    this.size = 0;
+  }
+
+  /**
+   * Gets the largest squared distance a cell may have and still be kept.
+   */
+  long bound() {
+    return this.size < this.dist2.length ? this.limit
+      : this.dist2[this.size - 1];
+  }
+
+  void offer(final long d2, final int row, final int col) {
+    final boolean full = this.size == this.dist2.length;
+    if (d2 > this.limit || (full && d2 >= this.dist2[this.size - 1])) {
+      return;
+    }
+    int i = Math.min(this.size, this.dist2.length - 1);
+    // shift farther cells out of the way, ties keep their arrival order
+    while (i > 0 && this.dist2[i - 1] > d2) {
+      this.dist2[i] = this.dist2[i - 1];
+      this.rows[i] = this.rows[i - 1];
+      this.cols[i] = this.cols[i - 1];
+      i--;
+    }
+    this.dist2[i] = d2;
+    this.rows[i] = row;
+    this.cols[i] = col;
+    if (this.size < this.dist2.length) {
+      this.size++;
+    }
+  }
+
+  void visit(final SpatialIndex.CellVisitor visitor) {
+    for (int i = 0; i < this.size; i++) {
+      visitor.visit(this.rows[i], this.cols[i]);
+    }
+  }
+
+  static long dist2(final int row, final int col, final int otherRow,
+    final int otherCol) {
+    final long dr = (long) otherRow - row;
+    final long dc = (long) otherCol - col;
+    return dr * dr + dc * dc;
+  }
+}
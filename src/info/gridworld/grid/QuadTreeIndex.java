@@ -0,0 +1,265 @@
+package info.gridworld.grid;
+
+import java.util.Arrays;
+
+/**
+ * A <code>QuadTreeIndex</code> is a {@link SpatialIndex} for unbounded grids. It is a point-region
+ * quadtree over the whole <code>int</code> coordinate range: a node holds up to a handful of cells
+ * and splits into four quadrants when it overflows, and a subtree that shrinks back below that size
+ * is collapsed into a single node again. <br />
+ * This class is not tested on the AP CS A and AB exams.
+ */
+public class QuadTreeIndex implements SpatialIndex {
+  private static final int LEAF_CAPACITY = 8;
+
+  private static final class Node {
+    private final long minRow;
+    private final long minCol;
+    private final long size;
+    private int count; // cells in this subtree
+    private int[] rows; // leaf storage, null for inner nodes
+    private int[] cols;
+    private Node[] children; // quadrants, null for leaves
+
+    private Node(final long minRow, final long minCol, final long size) {
+      this.minRow = minRow;
+      this.minCol = minCol;
+      this.size = size;
+      this.rows = new int[QuadTreeIndex.LEAF_CAPACITY];
+      this.cols = new int[QuadTreeIndex.LEAF_CAPACITY];
+    }
+
+    private boolean isLeaf() {
+      return this.children == null;
+    }
+
+    private int quadrant(final int row, final int col) {
+      final long half = this.size >> 1;
+      return (row >= this.minRow + half ? 2 : 0)
+        + (col >= this.minCol + half ? 1 : 0);
+    }
+
+    private Node child(final int quadrant) {
+      Node c = this.children[quadrant];
+      if (c == null) {
+        final long half = this.size >> 1;
+        c = new Node(this.minRow + ((quadrant & 2) != 0 ? half : 0),
+          this.minCol + ((quadrant & 1) != 0 ? half : 0), half);
+        this.children[quadrant] = c;
+      }
+      return c;
+    }
+
+    /**
+     * Gets the squared distance from a cell to the nearest cell covered by this node.
+     */
+    private double dist2(final int row, final int col) {
+      final long dr = Math.max(0,
+        Math.max(this.minRow - row, row - (this.minRow + this.size - 1)));
+      final long dc = Math.max(0,
+        Math.max(this.minCol - col, col - (this.minCol + this.size - 1)));
+      return (double) dr * dr + (double) dc * dc;
+    }
+  }
+
+  private Node root;
+
+  /**
+   * Constructs an empty quadtree index.
+   */
+  public QuadTreeIndex() {
+    this.clear();
+  }
+
+  @Override
+  public void add(final int row, final int col) {
+    Node node = this.root;
+    while (true) {
+      node.count++;
+      if (!node.isLeaf()) {
+        node = node.child(node.quadrant(row, col));
+      } else if (node.count <= QuadTreeIndex.LEAF_CAPACITY || node.size == 1) {
+        if (node.count > node.rows.length) {
+          node.rows = Arrays.copyOf(node.rows, 2 * node.rows.length);
+          node.cols = Arrays.copyOf(node.cols, 2 * node.cols.length);
+        }
+        node.rows[node.count - 1] = row;
+        node.cols[node.count - 1] = col;
+        return;
+      } else {
+        this.split(node);
+        node = node.child(node.quadrant(row, col));
+      }
+    }
+  }
+
+  @Override
+  public void remove(final int row, final int col) {
+    this.remove(this.root, row, col);
+  }
+
+  @Override
+  public void clear() {
+    this.root = new Node(Integer.MIN_VALUE, Integer.MIN_VALUE, 1L << 32);
+  }
+
+  @Override
+  public int size() {
+    return this.root.count;
+  }
+
+  @Override
+  public void forEachInRadius(final int row, final int col, final double radius,
+    final CellVisitor visitor) {
+    if (radius >= 0) {
+      this.forEachInRadius(this.root, row, col, radius * radius, visitor);
+    }
+  }
+
+  @Override
+  public void forEachInRect(final int minRow, final int minCol, final int maxRow,
+    final int maxCol, final CellVisitor visitor) {
+    if (minRow <= maxRow && minCol <= maxCol) {
+      this.forEachInRect(this.root, minRow, minCol, maxRow, maxCol, visitor);
+    }
+  }
+
+  @Override
+  public void forEachNearest(final int row, final int col, final int k,
+    final double maxRadius, final CellVisitor visitor) {
+    if (k <= 0 || maxRadius < 0) {
+      return;
+    }
+    final NearestCollector nearest = new NearestCollector(k, maxRadius);
+    this.collectNearest(this.root, row, col, nearest);
+    nearest.visit(visitor);
+  }
+
+  /**
+   * Moves the cells of a full leaf into newly created quadrants.
+   */
+  private void split(final Node node) {
+    final int[] rows = node.rows;
+    final int[] cols = node.cols;
+    final int n = node.count - 1; // count already includes the cell being added
+    node.rows = null;
+    node.cols = null;
+    node.children = new Node[4];
+    for (int i = 0; i < n; i++) {
+      final Node c = node.child(node.quadrant(rows[i], cols[i]));
+      c.rows[c.count] = rows[i];
+      c.cols[c.count] = cols[i];
+      c.count++;
+    }
+  }
+
+  private boolean remove(final Node node, final int row, final int col) {
+    if (node.isLeaf()) {
+      for (int i = 0; i < node.count; i++) {
+        if (node.rows[i] == row && node.cols[i] == col) {
+          node.count--;
+          node.rows[i] = node.rows[node.count];
+          node.cols[i] = node.cols[node.count];
+          return true;
+        }
+      }
+      return false;
+    }
+    final int q = node.quadrant(row, col);
+    final Node child = node.children[q];
+    if (child == null || !this.remove(child, row, col)) {
+      return false;
+    }
+    node.count--;
+    if (child.count == 0) {
+      node.children[q] = null;
+    }
+    if (node.count <= QuadTreeIndex.LEAF_CAPACITY) {
+      this.collapse(node);
+    }
+    return true;
+  }
+
+  /**
+   * Turns an inner node whose subtree fits into one leaf back into a leaf.
+   */
+  private void collapse(final Node node) {
+    final int[] rows = new int[QuadTreeIndex.LEAF_CAPACITY];
+    final int[] cols = new int[QuadTreeIndex.LEAF_CAPACITY];
+    final int[] n = {0};
+    this.forEachInRect(node, Integer.MIN_VALUE, Integer.MIN_VALUE,
+      Integer.MAX_VALUE, Integer.MAX_VALUE, (r, c) -> {
+        rows[n[0]] = r;
+        cols[n[0]] = c;
+        n[0]++;
+      });
+    node.children = null;
+    node.rows = rows;
+    node.cols = cols;
+  }
+
+  private void forEachInRadius(final Node node, final int row, final int col,
+    final double r2, final CellVisitor visitor) {
+    if (node == null || node.count == 0 || node.dist2(row, col) > r2) {
+      return;
+    }
+    if (node.isLeaf()) {
+      for (int i = 0; i < node.count; i++) {
+        if (NearestCollector.dist2(row, col, node.rows[i], node.cols[i]) <= r2) {
+          visitor.visit(node.rows[i], node.cols[i]);
+        }
+      }
+      return;
+    }
+    for (final Node child : node.children) {
+      this.forEachInRadius(child, row, col, r2, visitor);
+    }
+  }
+
+  private void forEachInRect(final Node node, final int minRow, final int minCol,
+    final int maxRow, final int maxCol, final CellVisitor visitor) {
+    if (node == null || node.count == 0 || node.minRow > maxRow
+      || node.minRow + node.size - 1 < minRow || node.minCol > maxCol
+      || node.minCol + node.size - 1 < minCol) {
+      return;
+    }
+    if (node.isLeaf()) {
+      for (int i = 0; i < node.count; i++) {
+        final int r = node.rows[i];
+        final int c = node.cols[i];
+        if (minRow <= r && r <= maxRow && minCol <= c && c <= maxCol) {
+          visitor.visit(r, c);
+        }
+      }
+      return;
+    }
+    for (final Node child : node.children) {
+      this.forEachInRect(child, minRow, minCol, maxRow, maxCol, visitor);
+    }
+  }
+
+  private void collectNearest(final Node node, final int row, final int col,
+    final NearestCollector nearest) {
+    if (node == null || node.count == 0 || node.dist2(row, col) > nearest.bound()) {
+      return;
+    }
+    if (node.isLeaf()) {
+      for (int i = 0; i < node.count; i++) {
+        final int r = node.rows[i];
+        final int c = node.cols[i];
+        if (r != row || c != col) {
+          nearest.offer(NearestCollector.dist2(row, col, r, c), r, c);
+        }
+      }
+      return;
+    }
+    // visit the quadrant holding the center first, so the bound tightens early
+    final int first = node.quadrant(row, col);
+    this.collectNearest(node.children[first], row, col, nearest);
+    for (int q = 0; q < 4; q++) {
+      if (q != first) {
+        this.collectNearest(node.children[q], row, col, nearest);
+      }
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package info.gridworld.grid;
+
+/**
+ * A <code>SpatialIndex</code> keeps track of the occupied cells of a grid so that radius, rectangle
+ * and nearest-neighbor queries only look at cells near the query point. An index that is attached
+ * to a grid through {@link AbstractGrid#setSpatialIndex(SpatialIndex)} is kept in sync by the
+ * grid's <code>put</code> and <code>remove</code> methods. <br />
+ * Queries do not modify the index, so several threads may query it at once as long as no thread
+ * modifies the grid at the same time. <br />
+ * This interface is not tested on the AP CS A and AB exams.
+ */
+public interface SpatialIndex {
+  /**
+   * A callback that receives the coordinates of an occupied cell.
+   */
+  @FunctionalInterface
+  interface CellVisitor {
+    void visit(int row, int col);
+  }
+
+  /**
+   * Records that a cell has become occupied. <br />
+   * Precondition: the cell is not already recorded
+   * 
+   * @param row the row of the cell
+   * @param col the column of the cell
+   */
+  void add(int row, int col);
+
+  /**
+   * Records that a cell has become empty. Removing a cell that is not recorded has no effect.
+   * 
+   * @param row the row of the cell
+   * @param col the column of the cell
+   */
+  void remove(int row, int col);
+
+  /**
+   * Forgets all recorded cells.
+   */
+  void clear();
+
+  /**
+   * Gets the number of recorded cells.
+   * 
+   * @return the number of occupied cells in this index
+   */
+  int size();
+
+  /**
+   * Visits every recorded cell whose Euclidean distance from a center cell is at most
+   * <code>radius</code>, in no particular order. The center cell is visited if it is recorded.
+   * 
+   * @param row the row of the center
+   * @param col the column of the center
+   * @param radius the maximum distance, in cells
+   * @param visitor the callback for each cell found
+   */
+  void forEachInRadius(int row, int col, double radius, CellVisitor visitor);
+
+  /**
+   * Visits every recorded cell in a rectangle, in no particular order.
+   * 
+   * @param minRow the smallest row of the rectangle
+   * @param minCol the smallest column of the rectangle
+   * @param maxRow the largest row of the rectangle (inclusive)
+   * @param maxCol the largest column of the rectangle (inclusive)
+   * @param visitor the callback for each cell found
+   */
+  void forEachInRect(int minRow, int minCol, int maxRow, int maxCol,
+    CellVisitor visitor);
+
+  /**
+   * Visits the <code>k</code> recorded cells nearest to a center cell, closest first. Cells farther
+   * than <code>maxRadius</code> are never visited, and neither is the center cell itself.
+   * 
+   * @param row the row of the center
+   * @param col the column of the center
+   * @param k the maximum number of cells to visit
+   * @param maxRadius the maximum distance, in cells
+   * @param visitor the callback for each cell found
+   */
+  void forEachNearest(int row, int col, int k, double maxRadius,
+    CellVisitor visitor);
+
+  /**
+   * Creates an empty index suited to a grid: uniform buckets for bounded grids and a quadtree for
+   * unbounded ones.
+   * 
+   * @param grid the grid to be indexed
+   * @return a new, empty index
+   */
+  static SpatialIndex forGrid(final Grid<?> grid) {
+    final int rows = grid.getNumRows();
+    final int cols = grid.getNumCols();
+    if (rows > 0 && cols > 0) {
+      return new BucketIndex(rows, cols);
+    }
+    return new QuadTreeIndex();
+  }
+}
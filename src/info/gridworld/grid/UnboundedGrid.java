@@ -22,6 +22,7 @@ import java.util.Map;
  */
 public class UnboundedGrid<E> extends AbstractGrid<E> {
   private final Map<Location, E> occupantMap;
+  private final LocationCache locationCache = new LocationCache();
 
   /**
    * Constructs an empty unbounded grid.
@@ -45,6 +46,16 @@ public class UnboundedGrid<E> extends AbstractGrid<E> {
     return true;
   }
 
+  @Override
+  public boolean isValid(final int row, final int col) {
+    return true;
+  }
+
+  @Override
+  public Location getLocation(final int row, final int col) {
+    return this.locationCache.get(row, col);
+  }
+
   @Override
   public ArrayList<Location> getOccupiedLocations() {
     final ArrayList<Location> a = new ArrayList<Location>();
@@ -70,7 +81,11 @@ public class UnboundedGrid<E> extends AbstractGrid<E> {
     if (obj == null) {
       throw new NullPointerException("obj == null");
     }
-    return this.occupantMap.put(loc, obj);
+    final E old = this.occupantMap.put(loc, obj);
+    if (old == null) {
+      this.indexAdded(loc.getRow(), loc.getCol());
+    }
+    return old;
   }
 
   @Override
@@ -78,6 +93,10 @@ public class UnboundedGrid<E> extends AbstractGrid<E> {
     if (loc == null) {
       throw new NullPointerException("loc == null");
     }
-    return this.occupantMap.remove(loc);
+    final E old = this.occupantMap.remove(loc);
+    if (old != null) {
+      this.indexRemoved(loc.getRow(), loc.getCol());
+    }
+    return old;
   }
 }
@@ -145,9 +145,9 @@ public class GridPanel extends JPanel
     g2.setColor(Color.GRAY);
     for (int y = miny; y <= maxy; y += this.cellSize + 1) {
       for (int x = minx; x <= maxx; x += this.cellSize + 1) {
-        final Location loc = this.locationForPoint(
-          new Point(x + this.cellSize / 2, y + this.cellSize / 2));
-        if (loc != null && !this.grid.isValid(loc)) {
+        final int row = this.yCoordToRow(y + this.cellSize / 2);
+        final int col = this.xCoordToCol(x + this.cellSize / 2);
+        if (!this.grid.isValid(row, col)) {
           g2.fillRect(x + 1, y + 1, this.cellSize, this.cellSize);
         }
       }
@@ -0,0 +1,105 @@
+package info.gridworld.world;
+
+import java.util.function.Predicate;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * A <code>HeadlessRunner</code> drives a world without a <code>WorldFrame</code> or Swing timer,
+ * stepping it as fast as possible on the calling thread and timing every step. It never touches
+ * AWT, so it can run batch jobs on machines without a display. <br />
+ * This class is not tested on the AP CS A and AB exams.
+ */
+public class HeadlessRunner<W extends World<?>> {
+  /**
+   * Step timings collected by a runner.
+   */
+  @Value
+  public static class Stats {
+    long steps;
+    long totalNanos;
+    long minNanos;
+    long maxNanos;
+
+    public double getMeanNanos() {
+      return this.steps == 0 ? 0 : (double) this.totalNanos / this.steps;
+    }
+
+    public double getStepsPerSecond() {
+      return this.totalNanos == 0 ? 0 : this.steps * 1e9 / this.totalNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+        "%d steps in %.3f ms (mean %.3f ms, min %.3f ms, max %.3f ms, %.1f steps/s)",
+        this.steps, this.totalNanos / 1e6, this.getMeanNanos() / 1e6,
+        this.minNanos / 1e6, this.maxNanos / 1e6, this.getStepsPerSecond());
+    }
+  }
+
+  @Getter private final @NonNull W world;
+  private long steps = 0;
+  private long totalNanos = 0;
+  private long minNanos = Long.MAX_VALUE;
+  private long maxNanos = 0;
+
+  public HeadlessRunner(final @NonNull W world) {
+    this.world = world;
+  }
+
+  /**
+   * Steps the world a fixed number of times.
+   *
+   * @param count the number of steps to run
+   * @return the timings of all steps run by this runner so far
+   */
+  public Stats run(final long count) {
+    for (long i = 0; i < count; i++) {
+      this.step();
+    }
+    return this.getStats();
+  }
+
+  /**
+   * Steps the world until a condition holds. The condition is checked before every step, so a
+   * world that already satisfies it is not stepped at all.
+   *
+   * @param done the condition on the world that ends the run
+   * @param maxSteps the maximum number of steps to run, or a negative number for no limit
+   * @return the timings of all steps run by this runner so far
+   */
+  public Stats runUntil(final @NonNull Predicate<? super W> done,
+    final long maxSteps) {
+    for (long i = 0; (maxSteps < 0 || i < maxSteps) && !done.test(this.world);
+      i++) {
+      this.step();
+    }
+    return this.getStats();
+  }
+
+  /**
+   * Steps the world once and records how long the step took.
+   */
+  public void step() {
+    final long start = System.nanoTime();
+    this.world.step();
+    final long elapsed = System.nanoTime() - start;
+    this.steps++;
+    this.totalNanos += elapsed;
+    this.minNanos = Math.min(this.minNanos, elapsed);
+    this.maxNanos = Math.max(this.maxNanos, elapsed);
+  }
+
+  /**
+   * Gets the timings of all steps run by this runner so far.
+   *
+   * @return the step timings
+   */
+  public Stats getStats() {
+    return new Stats(this.steps, this.totalNanos,
+      this.steps == 0 ? 0 : this.minNanos, this.maxNanos);
+  }
+}
@@ -0,0 +1,279 @@
+package info.gridworld.world;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+/**
+ * <code>Log</code> is the logging facade of the simulation. Messages are logged to dot-separated
+ * categories such as <code>cashgrab.collect</code>, and every category is off unless configured,
+ * either with {@link #setLevel(String, Level)} or with the system property
+ * <code>gridworld.log</code>, a comma-separated list like
+ * <code>cashgrab=debug,cashgrab.consume=off</code>. A level set for a category also applies to the
+ * categories below it that have no level of their own. <br />
+ * Enabled messages are queued in a ring buffer and written by a background thread to the file
+ * named by <code>gridworld.log.file</code>, <code>gridworld.log</code> by default, so logging never
+ * blocks a step; if the buffer is full, messages are dropped and counted. A disabled call costs a
+ * field read and a comparison. Arguments are formatted by the writer, so they must not change after
+ * being logged, and call sites with primitive arguments should check
+ * {@link Logger#isEnabled(Level)} first so the arguments aren't boxed in vain. <br />
+ * This class is not tested on the AP CS A and AB exams.
+ */
+@UtilityClass
+public class Log {
+  public enum Level {
+    TRACE, DEBUG, INFO, WARN, ERROR, OFF
+  }
+
+  /**
+   * A <code>Logger</code> logs to one category. Messages are built from a format in which every
+   * <code>{}</code> stands for the next argument, or from a supplier that is only called if the
+   * message is enabled.
+   */
+  public final class Logger {
+    @Getter private final String category;
+    private volatile int threshold = Level.OFF.ordinal();
+
+    private Logger(final String category) {
+      this.category = category;
+    }
+
+    public Level getLevel() {
+      return Level.values()[this.threshold];
+    }
+
+    public boolean isEnabled(final Level level) {
+      return level.ordinal() >= this.threshold && level != Level.OFF;
+    }
+
+    public void log(final Level level, final String format) {
+      if (this.isEnabled(level)) {
+        Log.offer(level, this.category, format, 0, null, null, null);
+      }
+    }
+
+    public void log(final Level level, final String format, final Object a) {
+      if (this.isEnabled(level)) {
+        Log.offer(level, this.category, format, 1, a, null, null);
+      }
+    }
+
+    public void log(final Level level, final String format, final Object a,
+      final Object b) {
+      if (this.isEnabled(level)) {
+        Log.offer(level, this.category, format, 2, a, b, null);
+      }
+    }
+
+    public void log(final Level level, final String format, final Object a,
+      final Object b, final Object c) {
+      if (this.isEnabled(level)) {
+        Log.offer(level, this.category, format, 3, a, b, c);
+      }
+    }
+
+    public void log(final Level level, final Supplier<String> message) {
+      if (this.isEnabled(level)) {
+        Log.offer(level, this.category, String.valueOf(message.get()), 0,
+          null, null, null);
+      }
+    }
+
+    public void debug(final String format) {
+      this.log(Level.DEBUG, format);
+    }
+
+    public void debug(final String format, final Object a) {
+      this.log(Level.DEBUG, format, a);
+    }
+
+    public void debug(final String format, final Object a, final Object b) {
+      this.log(Level.DEBUG, format, a, b);
+    }
+
+    public void debug(final String format, final Object a, final Object b,
+      final Object c) {
+      this.log(Level.DEBUG, format, a, b, c);
+    }
+
+    public void debug(final Supplier<String> message) {
+      this.log(Level.DEBUG, message);
+    }
+
+    public void warn(final String format) {
+      this.log(Level.WARN, format);
+    }
+
+    public void warn(final String format, final Object a) {
+      this.log(Level.WARN, format, a);
+    }
+
+    public void warn(final String format, final Object a, final Object b) {
+      this.log(Level.WARN, format, a, b);
+    }
+  }
+
+  private final Map<String, Logger> LOGGERS = new ConcurrentHashMap<>();
+  private final Map<String, Level> LEVELS = Log.parse(
+    System.getProperty("gridworld.log", ""), new ConcurrentHashMap<>());
+  private Path file = Paths.get(System.getProperty("gridworld.log.file",
+    "gridworld.log"));
+  private volatile LogWriter writer = null;
+  private boolean closingAtShutdown = false;
+
+  /**
+   * Gets the logger of a category.
+   *
+   * @param category the dot-separated category name
+   * @return the shared logger of <code>category</code>
+   */
+  public Logger getLogger(final @NonNull String category) {
+    final Logger logger = Log.LOGGERS.get(category);
+    if (logger != null) {
+      return logger;
+    }
+    synchronized (Log.LOGGERS) {
+      return Log.LOGGERS.computeIfAbsent(category, name -> {
+        final Logger newLogger = new Logger(name);
+        newLogger.threshold = Log.resolve(name).ordinal();
+        return newLogger;
+      });
+    }
+  }
+
+  /**
+   * Sets the level of a category and of the categories below it that have no level of their own.
+   *
+   * @param category the category, or <code>""</code> for all categories
+   * @param level the lowest level to log, or <code>null</code> to inherit the level again
+   */
+  public void setLevel(final @NonNull String category, final Level level) {
+    synchronized (Log.LOGGERS) {
+      if (level == null) {
+        Log.LEVELS.remove(category);
+      } else {
+        Log.LEVELS.put(category, level);
+      }
+      for (final Logger logger : Log.LOGGERS.values()) {
+        logger.threshold = Log.resolve(logger.getCategory()).ordinal();
+      }
+    }
+  }
+
+  /**
+   * Sets the levels of several categories at once.
+   *
+   * @param levels a comma-separated list of <code>category=level</code> pairs
+   */
+  public void configure(final @NonNull String levels) {
+    Log.parse(levels, new ConcurrentHashMap<>()).forEach(Log::setLevel);
+  }
+
+  /**
+   * Sets the file enabled messages are written to. Messages already queued still go to the
+   * previous file, and messages logged while it is being closed go to one file or the other.
+   *
+   * @param file the log file, which is appended to
+   */
+  public synchronized void setFile(final @NonNull Path file) {
+    Log.file = file;
+    final LogWriter old = Log.writer;
+    if (old != null) {
+      // the next writer is published first, so messages the old one refuses go straight to it
+      Log.writer = new LogWriter(file);
+      old.close();
+    }
+  }
+
+  /**
+   * Waits until every message logged so far has been written to the file.
+   */
+  public void flush() {
+    final LogWriter writer = Log.writer;
+    if (writer != null) {
+      writer.flush();
+    }
+  }
+
+  /**
+   * Queues a message with the current writer, moving on to the writer that replaced it if it was
+   * closed in the meantime. Messages logged after the log was closed at exit are discarded.
+   */
+  private void offer(final Level level, final String category,
+    final String format, final int argCount, final Object a, final Object b,
+    final Object c) {
+    LogWriter writer = Log.writer();
+    while (!writer.offer(level, category, format, argCount, a, b, c)) {
+      final LogWriter current = Log.writer();
+      if (current == writer) {
+        return;
+      }
+      writer = current;
+    }
+  }
+
+  private LogWriter writer() {
+    final LogWriter writer = Log.writer;
+    return writer != null ? writer : Log.openWriter();
+  }
+
+  private synchronized LogWriter openWriter() {
+    if (Log.writer == null) {
+      if (!Log.closingAtShutdown) {
+        // one hook for whichever writer is current, so replaced writers can be collected
+        Runtime.getRuntime()
+          .addShutdownHook(new Thread(Log::closeWriter, "gridworld-log-close"));
+        Log.closingAtShutdown = true;
+      }
+      Log.writer = new LogWriter(Log.file);
+    }
+    return Log.writer;
+  }
+
+  /**
+   * Writes the remaining messages of the current writer and closes its file.
+   */
+  private synchronized void closeWriter() {
+    if (Log.writer != null) {
+      Log.writer.close();
+    }
+  }
+
+  /**
+   * Finds the level of the nearest configured category at or above a category.
+   */
+  private Level resolve(final String category) {
+    for (String name = category;; name =
+      name.substring(0, Math.max(name.lastIndexOf('.'), 0))) {
+      final Level level = Log.LEVELS.get(name);
+      if (level != null) {
+        return level;
+      }
+      if (name.isEmpty()) {
+        return Level.OFF;
+      }
+    }
+  }
+
+  private Map<String, Level> parse(final String levels,
+    final Map<String, Level> into) {
+    for (final String pair : levels.split(",")) {
+      if (pair.trim().isEmpty()) {
+        continue;
+      }
+      final int eq = pair.indexOf('=');
+      if (eq < 0) {
+        throw new IllegalArgumentException("Expected category=level: " + pair);
+      }
+      into.put(pair.substring(0, eq).trim(),
+        Level.valueOf(pair.substring(eq + 1).trim().toUpperCase()));
+    }
+    return into;
+  }
+}
@@ -0,0 +1,210 @@
+package info.gridworld.world;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import info.gridworld.world.Log.Level;
+
+/**
+ * A <code>LogWriter</code> writes log messages to a file on a background thread. Any number of
+ * threads offer messages to a fixed ring of preallocated entries, claiming an entry with a single
+ * compare-and-set, so logging never blocks and never allocates beyond boxing its arguments; if the
+ * ring is full the message is dropped and counted. The writer thread formats the entries in the
+ * order they were claimed. Closing seals the ring against new claims and writes every message
+ * claimed before, so a message offered while the writer closes is either written or refused.
+ */
+final class LogWriter implements Runnable {
+  private static final int CAPACITY = 1 << 14;
+  private static final int MASK = LogWriter.CAPACITY - 1;
+  private static final long IDLE_NANOS = 1_000_000;
+  /**
+   * Set in {@link #claimed} once the ring takes no more messages.
+   */
+  private static final long SEALED = Long.MIN_VALUE;
+
+  private static final class Entry {
+    long time;
+    Level level;
+    String category;
+    String format;
+    int argCount;
+    Object a;
+    Object b;
+    Object c;
+  }
+
+  private final Entry[] entries = new Entry[LogWriter.CAPACITY];
+  /**
+   * The sequence number of the message in each entry, once the entry is filled.
+   */
+  private final AtomicLongArray published =
+    new AtomicLongArray(LogWriter.CAPACITY);
+  private final AtomicLong claimed = new AtomicLong();
+  private volatile long consumed = 0;
+  private volatile long written = 0;
+  private final LongAdder dropped = new LongAdder();
+  private final BufferedWriter out;
+  private final Thread thread;
+  private volatile boolean closed = false;
+
+  LogWriter(final Path file) {
+    try {
+      this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    for (int i = 0; i < LogWriter.CAPACITY; i++) {
+      this.entries[i] = new Entry();
+      this.published.set(i, -1);
+    }
+    this.thread = new Thread(this, "gridworld-log");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Queues a message, or drops and counts it if the ring is full.
+   *
+   * @return <code>false</code> if this writer is closing and refused the message, which should then
+   *         go to the writer that replaced it
+   */
+  boolean offer(final Level level, final String category, final String format,
+    final int argCount, final Object a, final Object b, final Object c) {
+    long seq;
+    do {
+      seq = this.claimed.get();
+      if ((seq & LogWriter.SEALED) != 0) {
+        return false;
+      }
+      if (seq - this.consumed >= LogWriter.CAPACITY) {
+        this.dropped.increment();
+        return true;
+      }
+    } while (!this.claimed.compareAndSet(seq, seq + 1));
+    final int i = (int) seq & LogWriter.MASK;
+    final Entry entry = this.entries[i];
+    entry.time = System.currentTimeMillis();
+    entry.level = level;
+    entry.category = category;
+    entry.format = format;
+    entry.argCount = argCount;
+    entry.a = a;
+    entry.b = b;
+    entry.c = c;
+    this.published.lazySet(i, seq);
+    return true;
+  }
+
+  /**
+   * Waits until every message offered so far has been written and flushed.
+   */
+  void flush() {
+    final long target = this.claimed.get() & ~LogWriter.SEALED;
+    while (this.written < target && this.thread.isAlive()) {
+      LockSupport.unpark(this.thread);
+      LockSupport.parkNanos(LogWriter.IDLE_NANOS / 10);
+    }
+  }
+
+  /**
+   * Refuses further messages, writes the remaining ones, closes the file and stops the writer
+   * thread.
+   */
+  void close() {
+    this.closed = true;
+    LockSupport.unpark(this.thread);
+    try {
+      this.thread.join();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void run() {
+    final StringBuilder line = new StringBuilder();
+    // the number of messages claimed before the ring was sealed
+    long end = Long.MAX_VALUE;
+    try {
+      for (;;) {
+        if (end == Long.MAX_VALUE && this.closed) {
+          end = this.claimed.getAndUpdate(seq -> seq | LogWriter.SEALED);
+        }
+        if (!this.drain(line)) {
+          this.out.flush();
+          this.written = this.consumed;
+          if (this.consumed >= end) {
+            break;
+          }
+          // once sealed, only waits for producers still filling their claimed entries
+          LockSupport.parkNanos(end == Long.MAX_VALUE ? LogWriter.IDLE_NANOS
+            : LogWriter.IDLE_NANOS / 10);
+        }
+      }
+      this.out.close();
+    } catch (final IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Writes the messages published so far.
+   *
+   * @return <code>true</code> if any message was written
+   */
+  private boolean drain(final StringBuilder line) throws IOException {
+    long seq = this.consumed;
+    final long start = seq;
+    for (;; seq++) {
+      final int i = (int) seq & LogWriter.MASK;
+      if (this.published.get(i) != seq) {
+        break;
+      }
+      final Entry entry = this.entries[i];
+      line.setLength(0);
+      line.append(entry.time).append(' ').append(entry.level).append(' ')
+        .append(entry.category).append(": ");
+      LogWriter.format(line, entry.format, entry.argCount, entry.a, entry.b,
+        entry.c);
+      entry.format = null;
+      entry.a = null;
+      entry.b = null;
+      entry.c = null;
+      this.out.append(line).append('\n');
+      // frees the entry for producers
+      this.consumed = seq + 1;
+    }
+    final long dropped = this.dropped.sumThenReset();
+    if (dropped > 0) {
+      this.out.append(String.valueOf(System.currentTimeMillis()))
+        .append(" WARN log: dropped ").append(String.valueOf(dropped))
+        .append(" messages\n");
+    }
+    return seq != start;
+  }
+
+  private static void format(final StringBuilder line, final String format,
+    final int argCount, final Object a, final Object b, final Object c) {
+    int from = 0;
+    for (int arg = 0; arg < argCount; arg++) {
+      final int at = format.indexOf("{}", from);
+      if (at < 0) {
+        break;
+      }
+      line.append(format, from, at)
+        .append(arg == 0 ? a : arg == 1 ? b : c);
+      from = at + 2;
+    }
+    line.append(format, from, format.length());
+  }
+}
@@ -9,8 +9,7 @@
  */
 package info.gridworld.world;
 
-import java.util.ArrayList;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -31,7 +30,7 @@ public class World<T> {
   private Set<String> gridClassNames;
   private String message;
   private JFrame frame;
-  private static Random generator = new Random();
+  private RandomService random = new RandomService();
   private static final int DEFAULT_ROWS = 10;
   private static final int DEFAULT_COLS = 10;
 
@@ -46,6 +45,7 @@ public class World<T> {
     this.occupantClassNames = new TreeSet<String>();
     this.addGridClass("info.gridworld.grid.BoundedGrid");
     this.addGridClass("info.gridworld.grid.UnboundedGrid");
+    this.addGridClass("info.gridworld.grid.ChunkedGrid");
   }
 
   /**
@@ -132,32 +132,68 @@ public class World<T> {
     return false;
   }
 
+  /**
+   * Gets the service that hands out the random number generators of this world.
+   * 
+   * @return the random number service
+   */
+  public RandomService getRandom() {
+    return this.random;
+  }
+
+  /**
+   * Replaces the random number service of this world, e.g. to make a run reproducible. Only
+   * occupants added afterwards draw their generators from the new service.
+   * 
+   * @param newRandom the new random number service
+   */
+  public void setRandom(final RandomService newRandom) {
+    this.random = newRandom;
+  }
+
+  /**
+   * Makes this world's randomness reproducible by deriving it from the given seed. Only occupants
+   * added afterwards draw their generators from the new seed.
+   * 
+   * @param seed the world seed
+   */
+  public void setSeed(final long seed) {
+    this.setRandom(new RandomService(seed));
+  }
+
   /**
    * Gets a random empty location in this world.
    * 
    * @return a random empty location
    */
   public Location getRandomEmptyLocation() {
+    final SplittableRandom generator = this.random.getWorldRandom();
     final Grid<T> gr = this.getGrid();
     final int rows = gr.getNumRows();
     final int cols = gr.getNumCols();
     if (rows > 0 && cols > 0) // bounded grid
     {
-      // get all valid empty locations and pick one at random
-      final ArrayList<Location> emptyLocs = new ArrayList<Location>();
+      // count all valid empty locations and pick one at random
+      int emptyCount = 0;
       for (int i = 0; i < rows; i++) {
         for (int j = 0; j < cols; j++) {
-          final Location loc = new Location(i, j);
-          if (gr.isValid(loc) && gr.get(loc) == null) {
-            emptyLocs.add(loc);
+          if (gr.isValid(i, j) && gr.get(i, j) == null) {
+            emptyCount++;
           }
         }
       }
-      if (emptyLocs.size() == 0) {
+      if (emptyCount == 0) {
         return null;
       }
-      final int r = World.generator.nextInt(emptyLocs.size());
-      return emptyLocs.get(r);
+      int r = generator.nextInt(emptyCount);
+      for (int i = 0; i < rows; i++) {
+        for (int j = 0; j < cols; j++) {
+          if (gr.isValid(i, j) && gr.get(i, j) == null && r-- == 0) {
+            return new Location(i, j);
+          }
+        }
+      }
+      return null;
     } else
     // unbounded grid
     {
@@ -165,19 +201,18 @@ public class World<T> {
         // keep generating a random location until an empty one is found
         int r;
         if (rows < 0) {
-          r = (int) (World.DEFAULT_ROWS * World.generator.nextGaussian());
+          r = (int) (World.DEFAULT_ROWS * RandomService.nextGaussian(generator));
         } else {
-          r = World.generator.nextInt(rows);
+          r = generator.nextInt(rows);
         }
         int c;
         if (cols < 0) {
-          c = (int) (World.DEFAULT_COLS * World.generator.nextGaussian());
+          c = (int) (World.DEFAULT_COLS * RandomService.nextGaussian(generator));
         } else {
-          c = World.generator.nextInt(cols);
+          c = generator.nextInt(cols);
         }
-        final Location loc = new Location(r, c);
-        if (gr.isValid(loc) && gr.get(loc) == null) {
-          return loc;
+        if (gr.isValid(r, c) && gr.get(r, c) == null) {
+          return new Location(r, c);
         }
       }
     }
@@ -280,7 +315,7 @@ public class World<T> {
     }
     for (int i = rmin; i <= rmax; i++) {
       for (int j = cmin; j < cmax; j++) {
-        final Object obj = gr.get(new Location(i, j));
+        final Object obj = gr.get(i, j);
         if (obj == null) {
           s += " ";
         } else {